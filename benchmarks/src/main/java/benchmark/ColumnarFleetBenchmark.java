@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import fleet.ColumnarFleetStore;
+import exception.InvalidOperationException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ColumnarFleetBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int fleetSize;
+
+    private ColumnarFleetStore store;
+
+    @Setup(Level.Trial)
+    public void createStore() throws InvalidOperationException {
+        FleetFixtures.silenceConsole();
+        store = ColumnarFleetStore.from(FleetFixtures.createFleet(FleetFixtures.createVehicles(fleetSize), false));
+    }
+
+    @Setup(Level.Iteration)
+    public void refuel() {
+        store.refuelAll(FleetFixtures.PLENTY_OF_FUEL);
+    }
+
+    @Benchmark
+    public void startAllJourneys() {
+        store.startAllJourneys(1.0);
+    }
+
+    @Benchmark
+    public double getTotalFuelConsumption() {
+        return store.getTotalFuelConsumption(100.0);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return store.generateReport();
+    }
+
+    @Benchmark
+    public void refuelAll() {
+        store.refuelAll(1.0);
+    }
+}
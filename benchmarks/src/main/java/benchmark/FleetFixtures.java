@@ -0,0 +1,106 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import vehicle.*;
+import fleet.FleetManager;
+import exception.*;
+import interfaces.FuelConsumable;
+import sink.NoOpMovementSink;
+
+final class FleetFixtures {
+    static final long SEED = 2024308L;
+    static final double PLENTY_OF_FUEL = 1_000_000_000.0;
+
+    private static final String[] MODELS = {
+        "Toyota", "Volvo", "Mercedes", "Boeing 747", "Maersk", "Scania", "Honda", "Airbus A320"
+    };
+
+    private FleetFixtures() {
+    }
+
+    // Benchmarks measure the fleet code, not the terminal: moves go to the no-op sink
+    // and the remaining status lines are discarded.
+    static void silenceConsole() {
+        Vehicle.setMovementSink(NoOpMovementSink.INSTANCE);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static List<Vehicle> createVehicles(int size) {
+        Random random = new Random(SEED);
+        List<Vehicle> vehicles = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                String model = MODELS[random.nextInt(MODELS.length)];
+                Vehicle v;
+                switch (i % 5) {
+                    case 0 -> {
+                        Car car = new Car(String.format("C%08d", i), model, 120 + random.nextInt(120), 4);
+                        car.boardPassengers(1 + random.nextInt(5));
+                        v = car;
+                    }
+                    case 1 -> {
+                        Truck truck = new Truck(String.format("T%08d", i), model, 90 + random.nextInt(60), 6);
+                        truck.loadCargo(1 + random.nextInt(5000));
+                        v = truck;
+                    }
+                    case 2 -> {
+                        Bus bus = new Bus(String.format("B%08d", i), model, 80 + random.nextInt(40), 6);
+                        bus.boardPassengers(1 + random.nextInt(50));
+                        v = bus;
+                    }
+                    case 3 -> {
+                        Airplane plane = new Airplane(String.format("A%08d", i), model, 700 + random.nextInt(250), 10000);
+                        plane.boardPassengers(1 + random.nextInt(200));
+                        v = plane;
+                    }
+                    default -> {
+                        CargoShip ship = new CargoShip(String.format("S%08d", i), model, 30 + random.nextInt(30), false);
+                        ship.loadCargo(1 + random.nextInt(50000));
+                        v = ship;
+                    }
+                }
+                if (v instanceof FuelConsumable fc) {
+                    fc.refuel(1 + random.nextInt(5000));
+                }
+                v.addMileage(random.nextInt(20000));
+                vehicles.add(v);
+            }
+        } catch (InvalidOperationException | OverloadException e) {
+            throw new IllegalStateException("Could not build benchmark fleet: " + e.getMessage(), e);
+        }
+        return vehicles;
+    }
+
+    static FleetManager createFleet(List<Vehicle> vehicles, boolean shuffled) {
+        List<Vehicle> order = new ArrayList<>(vehicles);
+        if (shuffled) {
+            Collections.shuffle(order, new Random(SEED));
+        }
+        FleetManager fleetManager = new FleetManager();
+        try {
+            for (Vehicle v : order) {
+                fleetManager.addVehicle(v);
+            }
+        } catch (InvalidOperationException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return fleetManager;
+    }
+
+    static void refuel(List<Vehicle> vehicles, double amount) {
+        try {
+            for (Vehicle v : vehicles) {
+                if (v instanceof FuelConsumable fc) {
+                    fc.refuel(amount);
+                }
+            }
+        } catch (InvalidOperationException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
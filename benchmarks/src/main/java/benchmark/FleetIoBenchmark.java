@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import fleet.FleetManager;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class FleetIoBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int fleetSize;
+
+    private FleetManager fleetManager;
+    private Path directory;
+    private String sourceFile;
+    private String targetFile;
+    private String sourceSnapshot;
+    private String targetSnapshot;
+
+    @Setup(Level.Trial)
+    public void writeSourceFile() throws IOException {
+        FleetFixtures.silenceConsole();
+        fleetManager = FleetFixtures.createFleet(FleetFixtures.createVehicles(fleetSize), false);
+        directory = Files.createTempDirectory("fleet-bench");
+        sourceFile = directory.resolve("source.csv").toString();
+        targetFile = directory.resolve("target.csv").toString();
+        sourceSnapshot = directory.resolve("source.fleet").toString();
+        targetSnapshot = directory.resolve("target.fleet").toString();
+        fleetManager.saveToFile(sourceFile);
+        fleetManager.saveSnapshot(sourceSnapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(Path.of(sourceFile));
+        Files.deleteIfExists(Path.of(targetFile));
+        Files.deleteIfExists(Path.of(sourceSnapshot));
+        Files.deleteIfExists(Path.of(targetSnapshot));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public FleetManager saveToFile() {
+        fleetManager.saveToFile(targetFile);
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager loadFromFile() {
+        FleetManager loaded = new FleetManager();
+        loaded.loadFromFile(sourceFile);
+        return loaded;
+    }
+
+    @Benchmark
+    public FleetManager loadFromFileParallel() {
+        FleetManager loaded = new FleetManager();
+        loaded.loadFromFileParallel(sourceFile);
+        return loaded;
+    }
+
+    @Benchmark
+    public FleetManager saveSnapshot() {
+        fleetManager.saveSnapshot(targetSnapshot);
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager loadSnapshot() {
+        FleetManager loaded = new FleetManager();
+        loaded.loadSnapshot(sourceSnapshot);
+        return loaded;
+    }
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import vehicle.Vehicle;
+import fleet.FleetManager;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class FleetOperationsBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int fleetSize;
+
+    private List<Vehicle> vehicles;
+    private FleetManager fleetManager;
+
+    @Setup(Level.Trial)
+    public void createFleet() {
+        FleetFixtures.silenceConsole();
+        vehicles = FleetFixtures.createVehicles(fleetSize);
+        fleetManager = FleetFixtures.createFleet(vehicles, false);
+    }
+
+    @Setup(Level.Iteration)
+    public void refuel() {
+        FleetFixtures.refuel(vehicles, FleetFixtures.PLENTY_OF_FUEL);
+    }
+
+    @Benchmark
+    public void startAllJourneys() {
+        fleetManager.startAllJourneys(1.0);
+    }
+
+    @Benchmark
+    public byte[] moveAll() {
+        return fleetManager.moveAll(1.0);
+    }
+
+    @Benchmark
+    public double getTotalFuelConsumption() {
+        return fleetManager.getTotalFuelConsumption(100.0);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return fleetManager.generateReport();
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import vehicle.Vehicle;
+import fleet.FleetManager;
+
+// Each sort runs once per iteration on a freshly shuffled fleet; sorting an already
+// sorted list would only measure TimSort's best case.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class FleetSortBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int fleetSize;
+
+    private List<Vehicle> vehicles;
+    private FleetManager fleetManager;
+
+    @Setup(Level.Trial)
+    public void createVehicles() {
+        FleetFixtures.silenceConsole();
+        vehicles = FleetFixtures.createVehicles(fleetSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void shuffleFleet() {
+        fleetManager = FleetFixtures.createFleet(vehicles, true);
+    }
+
+    @Benchmark
+    public FleetManager sortById() {
+        fleetManager.sortById();
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager sortByModel() {
+        fleetManager.sortByModel();
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager sortByMaxSpeed() {
+        fleetManager.sortByMaxSpeed();
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager sortByType() {
+        fleetManager.sortByType();
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager sortByFuelLevel() {
+        fleetManager.sortByFuelLevel();
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager sortByMileage() {
+        fleetManager.sortByMileage();
+        return fleetManager;
+    }
+
+    @Benchmark
+    public FleetManager sortFleetByEfficiency() {
+        fleetManager.sortFleetByEfficiency();
+        return fleetManager;
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import vehicle.*;
+import exception.*;
+import interfaces.FuelConsumable;
+import road.Road;
+import road.RoadTraffic;
+
+// One time step of a loaded four-lane corridor. The cost per vehicle should stay flat as the
+// corridor fills up, since neighbours are found in sorted lanes rather than by search, and fall
+// with the partition count on as many cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class RoadTrafficBenchmark {
+    private static final int LANES = 4;
+
+    @Param({"10000", "100000", "1000000"})
+    private int vehicleCount;
+
+    @Param({"1", "4", "8"})
+    private int partitions;
+
+    private RoadTraffic traffic;
+
+    // Vehicles 40 m apart in every lane, with enough fuel that none stalls.
+    @Setup(Level.Iteration)
+    public void fillRoad() throws InvalidOperationException {
+        FleetFixtures.silenceConsole();
+        double lengthKm = vehicleCount / LANES * 0.04 + 1;
+        traffic = new RoadTraffic(Road.uniform(lengthKm, LANES, 130), RoadTraffic.DEFAULT_STEP_SECONDS, partitions);
+        for (int i = 0; i < vehicleCount; i++) {
+            LandVehicle v = i % 5 == 1
+                    ? new Truck(String.format("T%08d", i), "Scania", 90, 6)
+                    : new Car(String.format("C%08d", i), "Toyota", 100 + (i * 7) % 80, 4);
+            ((FuelConsumable) v).refuel(FleetFixtures.PLENTY_OF_FUEL);
+            traffic.place(v, i % LANES, (i / LANES) * 0.04);
+        }
+        traffic.step();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopWorkers() {
+        traffic.close();
+    }
+
+    @Benchmark
+    public int step() {
+        traffic.step();
+        return traffic.getVehiclesOnRoad();
+    }
+}
@@ -0,0 +1,46 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import vehicle.Vehicle;
+import fleet.FleetManager;
+import fleet.SortKey;
+
+// Reading a page of a maintained ordering after one vehicle has moved; FleetSortBenchmark
+// has the full in-place sorts this replaces.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class SortedViewBenchmark {
+    private static final int PAGE = 50;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int fleetSize;
+
+    @Param({"ID", "FUEL_LEVEL", "MILEAGE"})
+    private SortKey key;
+
+    private List<Vehicle> vehicles;
+    private FleetManager fleetManager;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createFleet() {
+        FleetFixtures.silenceConsole();
+        vehicles = FleetFixtures.createVehicles(fleetSize);
+        FleetFixtures.refuel(vehicles, FleetFixtures.PLENTY_OF_FUEL);
+        fleetManager = FleetFixtures.createFleet(vehicles, true);
+        fleetManager.getSorted(key, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<Vehicle> moveOneAndReadPage() {
+        int i = next++ % fleetSize;
+        vehicles.get(i).tryMove(1.0);
+        return fleetManager.getSorted(key, i, PAGE);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import metrics.Metrics;
+import vehicle.Vehicle;
+import exception.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class VehicleMoveBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int fleetSize;
+
+    // Whether moves are timed and counted, to show what recording costs.
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private List<Vehicle> vehicles;
+
+    @Setup(Level.Trial)
+    public void createFleet() {
+        FleetFixtures.silenceConsole();
+        vehicles = FleetFixtures.createVehicles(fleetSize);
+        Metrics.setEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void disableMetrics() {
+        Metrics.setEnabled(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void refuel() {
+        FleetFixtures.refuel(vehicles, FleetFixtures.PLENTY_OF_FUEL);
+    }
+
+    @Benchmark
+    public void moveEachVehicle(Blackhole blackhole) {
+        for (Vehicle v : vehicles) {
+            try {
+                v.move(1.0);
+            } catch (InvalidOperationException | InsufficientFuelException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+}
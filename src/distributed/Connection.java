@@ -0,0 +1,205 @@
+package distributed;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import exception.InvalidOperationException;
+import fleet.FleetSnapshot;
+import road.RoadHandoff;
+import vehicle.LandVehicle;
+import vehicle.Vehicle;
+
+// One end of the link between the coordinator and a shard worker: a blocking socket, over TCP
+// on the loopback interface or a Unix domain socket, carrying messages that each start with a
+// type byte. Messages are buffered and go out on send(), so a step costs one write each way.
+//
+// Vehicles handed from shard to shard travel as their road state followed by a fleet snapshot
+// of the vehicles themselves, so they arrive with their mileage, fuel and load. The vehicles a
+// shard starts with travel the same way, with the lane and position it is to place them at.
+final class Connection implements AutoCloseable {
+    static final byte HELLO = 1;
+    static final byte CONFIG = 2;
+    static final byte READY = 3;
+    static final byte STEP = 4;
+    static final byte STEPPED = 5;
+    static final byte STOP = 6;
+    static final byte STOPPED = 7;
+
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    Connection(SocketChannel channel) {
+        this.channel = channel;
+        in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    }
+
+    // "tcp:port" or "unix:path", as written by describe().
+    static Connection connect(String address) throws IOException {
+        SocketAddress target;
+        StandardProtocolFamily family;
+        if (address.startsWith("unix:")) {
+            target = UnixDomainSocketAddress.of(address.substring("unix:".length()));
+            family = StandardProtocolFamily.UNIX;
+        } else if (address.startsWith("tcp:")) {
+            target = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address.substring("tcp:".length())));
+            family = StandardProtocolFamily.INET;
+        } else {
+            throw new IllegalArgumentException("Unknown address " + address + ".");
+        }
+        SocketChannel channel = SocketChannel.open(family);
+        channel.connect(target);
+        if (family == StandardProtocolFamily.INET) channel.socket().setTcpNoDelay(true);
+        return new Connection(channel);
+    }
+
+    // A listening socket on a free loopback port, or at the given path for a Unix socket.
+    static ServerSocketChannel listen(Path unixPath) throws IOException {
+        if (unixPath != null) {
+            ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(unixPath));
+            return server;
+        }
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return server;
+    }
+
+    static String describe(ServerSocketChannel server) throws IOException {
+        SocketAddress local = server.getLocalAddress();
+        if (local instanceof UnixDomainSocketAddress unix) return "unix:" + unix.getPath();
+        return "tcp:" + ((InetSocketAddress) local).getPort();
+    }
+
+    static Connection accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel.getLocalAddress() instanceof InetSocketAddress) channel.socket().setTcpNoDelay(true);
+        return new Connection(channel);
+    }
+
+    DataInputStream in() {
+        return in;
+    }
+
+    DataOutputStream out() {
+        return out;
+    }
+
+    void send() throws IOException {
+        out.flush();
+    }
+
+    void expect(byte type) throws IOException {
+        byte got = in.readByte();
+        if (got != type) throw new IOException("Expected message " + type + " but got " + got + ".");
+    }
+
+    void writeHandoffs(List<RoadHandoff> handoffs) throws IOException {
+        out.writeInt(handoffs.size());
+        if (handoffs.isEmpty()) return;
+        List<Vehicle> vehicles = new ArrayList<>(handoffs.size());
+        for (RoadHandoff h : handoffs) {
+            out.writeInt(h.lane());
+            out.writeDouble(h.positionKm());
+            out.writeDouble(h.speed());
+            out.writeDouble(h.travelledKm());
+            out.writeDouble(h.lastLaneChange());
+            out.writeBoolean(h.stalled());
+            vehicles.add(h.vehicle());
+        }
+        writeVehicles(vehicles);
+    }
+
+    List<RoadHandoff> readHandoffs() throws IOException {
+        int count = in.readInt();
+        if (count == 0) return List.of();
+        int[] lanes = new int[count];
+        double[] state = new double[4 * count];
+        boolean[] stalled = new boolean[count];
+        for (int k = 0; k < count; k++) {
+            lanes[k] = in.readInt();
+            for (int f = 0; f < 4; f++) {
+                state[4 * k + f] = in.readDouble();
+            }
+            stalled[k] = in.readBoolean();
+        }
+        List<Vehicle> vehicles = readVehicles("hand-off", count);
+        List<RoadHandoff> result = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            result.add(new RoadHandoff((LandVehicle) vehicles.get(k), lanes[k], state[4 * k], state[4 * k + 1],
+                    state[4 * k + 2], state[4 * k + 3], stalled[k]));
+        }
+        return result;
+    }
+
+    // The vehicles a shard starts with, each where RoadTraffic.layOutEvenly() put it.
+    void writePlacements(List<Placed> placements) throws IOException {
+        out.writeInt(placements.size());
+        if (placements.isEmpty()) return;
+        List<Vehicle> vehicles = new ArrayList<>(placements.size());
+        for (Placed p : placements) {
+            out.writeInt(p.lane());
+            out.writeDouble(p.positionKm());
+            vehicles.add(p.vehicle());
+        }
+        writeVehicles(vehicles);
+    }
+
+    List<Placed> readPlacements() throws IOException {
+        int count = in.readInt();
+        if (count == 0) return List.of();
+        int[] lanes = new int[count];
+        double[] positions = new double[count];
+        for (int k = 0; k < count; k++) {
+            lanes[k] = in.readInt();
+            positions[k] = in.readDouble();
+        }
+        List<Vehicle> vehicles = readVehicles("placement", count);
+        List<Placed> result = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            result.add(new Placed((LandVehicle) vehicles.get(k), lanes[k], positions[k]));
+        }
+        return result;
+    }
+
+    private void writeVehicles(List<Vehicle> vehicles) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * vehicles.size());
+        FleetSnapshot.write(vehicles, Channels.newChannel(bytes));
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private List<Vehicle> readVehicles(String what, int count) throws IOException {
+        byte[] snapshot = new byte[in.readInt()];
+        in.readFully(snapshot);
+        List<Vehicle> vehicles;
+        try {
+            vehicles = FleetSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+        } catch (InvalidOperationException e) {
+            throw new IOException("Bad vehicle in " + what + ": " + e.getMessage(), e);
+        }
+        if (vehicles.size() != count) {
+            throw new IOException("A " + what + " of " + count + " vehicles carried " + vehicles.size() + ".");
+        }
+        return vehicles;
+    }
+
+    // A vehicle with the lane and position it starts at; lane -1 queues it at the start of the road.
+    record Placed(LandVehicle vehicle, int lane, double positionKm) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,297 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import exception.InvalidOperationException;
+import fleet.ParallelCsvLoader;
+import road.Road;
+import road.RoadHandoff;
+import road.RoadTraffic;
+import vehicle.LandVehicle;
+import vehicle.Vehicle;
+
+// Runs a road simulation split over several processes. The road is cut into as many stretches
+// of equal length as there are ShardWorkers, which the coordinator starts as child JVMs on the
+// same machine and talks to over loopback TCP or a Unix domain socket. The coordinator reads the
+// fleet file and lays the fleet out over the whole road, then gives each shard just the vehicles
+// on its stretch, so no worker parses or holds more than its share.
+//
+// The shards move in lockstep. Each step the coordinator sends every shard the vehicles that
+// left the stretch behind it in the last step, together with the rear vehicle of each lane on
+// the stretch ahead and the front vehicle of each lane on the stretch behind; all shards then
+// drive one step at the same time, and send back their departures and their own rear and front
+// vehicles. What a shard knows of its neighbours is therefore one step old, which RoadTraffic
+// allows for, but it also means the result is close to, not identical with, that of a single
+// RoadTraffic.
+public final class Coordinator {
+    private final Connection[] shards;
+    private final int lanes;
+    // The rear back, rear speed, front and front speed of every lane of every shard, as last
+    // reported.
+    private final double[][] ends;
+    private final List<List<RoadHandoff>> departures = new ArrayList<>();
+    private final long[] handedOn;
+    // Moves made by all shards so far, summed from what each reports after every step.
+    private long moves;
+
+    private Coordinator(Connection[] shards, int lanes) {
+        this.shards = shards;
+        this.lanes = lanes;
+        ends = new double[shards.length][4 * lanes];
+        handedOn = new long[shards.length];
+        for (int k = 0; k < shards.length; k++) {
+            departures.add(List.of());
+        }
+    }
+
+    // Reads the fleet once, lays it out over the whole road and sends each shard only the
+    // vehicles on its own stretch, the queue at the start of the road going to the first.
+    private int configure(String fleetFile, Road road, double lengthKm, double speedLimit, double dropKm,
+                          int partitionCount) throws IOException, InvalidOperationException {
+        List<LandVehicle> fleet = new ArrayList<>();
+        for (Vehicle v : new ParallelCsvLoader().load(Path.of(fleetFile), System.out::println)) {
+            if (v instanceof LandVehicle lv) fleet.add(lv);
+        }
+        List<List<Connection.Placed>> placements = new ArrayList<>(shards.length);
+        for (int k = 0; k < shards.length; k++) {
+            placements.add(new ArrayList<>());
+        }
+        RoadTraffic.layOutEvenly(road, fleet, (v, l, x) ->
+                placements.get(l < 0 ? 0 : shardAt(x, road)).add(new Connection.Placed(v, l, x)));
+
+        for (int k = 0; k < shards.length; k++) {
+            DataOutputStream out = shards[k].out();
+            out.writeByte(Connection.CONFIG);
+            out.writeDouble(lengthKm);
+            out.writeInt(road.getMaxLanes());
+            out.writeDouble(speedLimit);
+            out.writeDouble(dropKm);
+            out.writeDouble(RoadTraffic.DEFAULT_STEP_SECONDS);
+            out.writeInt(partitionCount);
+            out.writeDouble(startOf(k, road));
+            out.writeDouble(startOf(k + 1, road));
+            shards[k].writePlacements(placements.get(k));
+            shards[k].send();
+        }
+        int placed = 0;
+        for (int k = 0; k < shards.length; k++) {
+            shards[k].expect(Connection.READY);
+            placed += shards[k].in().readInt();
+            readEnds(k);
+        }
+        return placed;
+    }
+
+    private double startOf(int shard, Road road) {
+        return shard == shards.length ? road.getLengthKm() : road.getLengthKm() * shard / shards.length;
+    }
+
+    // The shard whose stretch holds the position, by the test RoadTraffic itself applies.
+    private int shardAt(double positionKm, Road road) {
+        double x = positionKm * 1000.0;
+        int k = Math.min(shards.length - 1, (int) (positionKm * shards.length / road.getLengthKm()));
+        while (k > 0 && x < startOf(k, road) * 1000.0) k--;
+        while (k + 1 < shards.length && x >= startOf(k + 1, road) * 1000.0) k++;
+        return k;
+    }
+
+    private void step() throws IOException {
+        for (int k = 0; k < shards.length; k++) {
+            DataOutputStream out = shards[k].out();
+            out.writeByte(Connection.STEP);
+            for (int l = 0; l < lanes; l++) {
+                boolean ahead = k + 1 < shards.length;
+                boolean behind = k > 0;
+                out.writeDouble(ahead ? ends[k + 1][4 * l] : Double.POSITIVE_INFINITY);
+                out.writeDouble(ahead ? ends[k + 1][4 * l + 1] : 0.0);
+                out.writeDouble(behind ? ends[k - 1][4 * l + 2] : Double.NEGATIVE_INFINITY);
+                out.writeDouble(behind ? ends[k - 1][4 * l + 3] : 0.0);
+            }
+            shards[k].writeHandoffs(k > 0 ? departures.get(k - 1) : List.of());
+            shards[k].send();
+        }
+        for (int k = 0; k < shards.length; k++) {
+            shards[k].expect(Connection.STEPPED);
+            List<RoadHandoff> left = shards[k].readHandoffs();
+            departures.set(k, left);
+            handedOn[k] += left.size();
+            readEnds(k);
+            moves += shards[k].in().readLong();
+        }
+    }
+
+    private void readEnds(int shard) throws IOException {
+        DataInputStream in = shards[shard].in();
+        for (int f = 0; f < 4 * lanes; f++) {
+            ends[shard][f] = in.readDouble();
+        }
+    }
+
+    // Stops the shards and prints what they report.
+    private void finish(Road road, long steps, double wall) throws IOException {
+        for (Connection shard : shards) {
+            shard.out().writeByte(Connection.STOP);
+            shard.send();
+        }
+        int onRoad = 0;
+        int waiting = 0;
+        int exited = 0;
+        int stalled = 0;
+        long laneChanges = 0;
+        double distance = 0;
+        double speedSum = 0;
+        long vehicleSteps = 0;
+        StringBuilder table = new StringBuilder("    Shard   from km     to km  vehicles  vehicle steps  handed on   busy ms\n");
+        for (int k = 0; k < shards.length; k++) {
+            shards[k].expect(Connection.STOPPED);
+            DataInputStream in = shards[k].in();
+            int vehicles = in.readInt();
+            onRoad += vehicles;
+            waiting += in.readInt();
+            exited += in.readInt();
+            stalled += in.readInt();
+            laneChanges += in.readLong();
+            distance += in.readDouble();
+            speedSum += in.readDouble();
+            long shardSteps = in.readLong();
+            vehicleSteps += shardSteps;
+            double busy = in.readLong() / 1e6;
+            table.append(String.format("%9d %9.1f %9.1f %9d %14d %10d %9.0f%n", k, startOf(k, road), startOf(k + 1, road),
+                    vehicles, shardSteps, handedOn[k], busy));
+        }
+        // Vehicles handed on in the last step have left one shard and not reached the next.
+        for (int k = 0; k + 1 < shards.length; k++) {
+            onRoad += departures.get(k).size();
+        }
+        System.out.printf("Simulated %.0f s on %d shards in %.3f s wall-clock (%.0f ns per vehicle step)%n",
+                steps * RoadTraffic.DEFAULT_STEP_SECONDS, shards.length, wall, wall * 1e9 / Math.max(1, vehicleSteps));
+        System.out.printf("On road: %d, waiting: %d, exited: %d, stalled: %d, mean speed: %.1f km/h%n",
+                onRoad, waiting, exited, stalled, onRoad == 0 ? 0.0 : speedSum / onRoad);
+        System.out.printf("Lane changes: %d, distance: %.0f km, moves reported: %d%n", laneChanges, distance, moves);
+        System.out.print(table);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            printUsage();
+            return;
+        }
+        String fleetFile = new File(args[0]).getAbsolutePath();
+        double seconds = 600;
+        int workerCount = 2;
+        int laneCount = 4;
+        double lengthKm = 1000;
+        double speedLimit = 130;
+        double dropKm = 0;
+        int partitionCount = 1;
+        boolean unix = false;
+        boolean spawn = true;
+        try {
+            if (args.length > 1 && !args[1].startsWith("--")) seconds = Double.parseDouble(args[1]);
+            for (String arg : args) {
+                if (arg.startsWith("--workers=")) workerCount = Integer.parseInt(arg.substring("--workers=".length()));
+                else if (arg.startsWith("--lanes=")) laneCount = Integer.parseInt(arg.substring("--lanes=".length()));
+                else if (arg.startsWith("--length=")) lengthKm = Double.parseDouble(arg.substring("--length=".length()));
+                else if (arg.startsWith("--limit=")) speedLimit = Double.parseDouble(arg.substring("--limit=".length()));
+                else if (arg.startsWith("--drop=")) dropKm = Double.parseDouble(arg.substring("--drop=".length()));
+                else if (arg.startsWith("--partitions=")) partitionCount = Integer.parseInt(arg.substring("--partitions=".length()));
+                else if (arg.equals("--unix")) unix = true;
+                else if (arg.equals("--no-spawn")) spawn = false;
+            }
+        } catch (NumberFormatException e) {
+            printUsage();
+            return;
+        }
+        if (workerCount < 1) {
+            System.out.println("At least one worker is needed.");
+            return;
+        }
+        Road road = Road.corridor(lengthKm, laneCount, speedLimit, dropKm);
+
+        List<Process> workers = new ArrayList<>();
+        Connection[] shards = new Connection[workerCount];
+        Path socketDir = null;
+        boolean ok = false;
+        try {
+            Path socketPath = null;
+            if (unix) {
+                socketDir = Files.createTempDirectory("road-shards");
+                socketPath = socketDir.resolve("coordinator.sock");
+            }
+            try (ServerSocketChannel server = Connection.listen(socketPath)) {
+                String address = Connection.describe(server);
+                if (spawn) {
+                    String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+                    for (int k = 0; k < workerCount; k++) {
+                        workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                ShardWorker.class.getName(), address, Integer.toString(k)).inheritIO().start());
+                    }
+                } else {
+                    System.out.println("Waiting for " + workerCount + " workers: java " + ShardWorker.class.getName()
+                            + " " + address + " <shard>");
+                }
+                for (int n = 0; n < workerCount; n++) {
+                    Connection connection = Connection.accept(server);
+                    connection.expect(Connection.HELLO);
+                    int shard = connection.in().readInt();
+                    if (shard < 0 || shard >= workerCount || shards[shard] != null) {
+                        connection.close();
+                        throw new IOException("Unexpected worker for shard " + shard + ".");
+                    }
+                    shards[shard] = connection;
+                }
+            }
+
+            Coordinator coordinator = new Coordinator(shards, road.getMaxLanes());
+            int placed = coordinator.configure(fleetFile, road, lengthKm, speedLimit, dropKm, partitionCount);
+            System.out.printf("Placed %d vehicles on %.0f km x %d lanes over %d shards (%s)%n",
+                    placed, lengthKm, road.getMaxLanes(), workerCount, unix ? "Unix domain sockets" : "loopback TCP");
+            long steps = (long) Math.ceil(seconds / RoadTraffic.DEFAULT_STEP_SECONDS);
+            long begin = System.nanoTime();
+            for (long s = 0; s < steps; s++) {
+                coordinator.step();
+            }
+            double wall = (System.nanoTime() - begin) / 1e9;
+            coordinator.finish(road, steps, wall);
+            ok = true;
+        } catch (IOException | InvalidOperationException e) {
+            System.out.println("Distributed simulation failed: " + e.getMessage());
+        } finally {
+            for (Connection shard : shards) {
+                if (shard == null) continue;
+                try {
+                    shard.close();
+                } catch (IOException ignored) {
+                }
+            }
+            for (Process worker : workers) {
+                try {
+                    if (!ok || !worker.waitFor(10, TimeUnit.SECONDS)) worker.destroyForcibly();
+                } catch (InterruptedException e) {
+                    worker.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (socketDir != null) {
+                try {
+                    Files.deleteIfExists(socketDir.resolve("coordinator.sock"));
+                    Files.deleteIfExists(socketDir);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java distributed.Coordinator <fleet.csv> [seconds] [--workers=N] [--unix] [--no-spawn]"
+                + " [--partitions=P] [--lanes=N] [--length=KM] [--limit=KMH] [--drop=KM]");
+    }
+}
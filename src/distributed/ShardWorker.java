@@ -0,0 +1,154 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import exception.InvalidOperationException;
+import fleet.FleetManager;
+import road.Road;
+import road.RoadHandoff;
+import road.RoadTraffic;
+import sink.CountingMovementSink;
+import vehicle.Vehicle;
+
+// One process of a distributed road simulation: drives one stretch of the road with its own
+// RoadTraffic, a step at a time as the Coordinator says, and hands the vehicles that leave
+// its stretch back to be passed on to the next shard.
+//
+// The coordinator lays the fleet out the way RoadTraffic.placeEvenly() does and sends each
+// worker only the vehicles on its stretch, so the shards start out exactly as a single
+// RoadTraffic would. A worker keeps the vehicles it drives in a FleetManager of its own,
+// adding those that arrive and removing those it hands on.
+public final class ShardWorker {
+    private final Connection connection;
+    private final CountingMovementSink counter = new CountingMovementSink();
+    private final FleetManager fleet = new FleetManager();
+    // The part of the counter already sent to the coordinator.
+    private long movesReported;
+    private RoadTraffic traffic;
+    private int lanes;
+    private long busyNanos;
+
+    private ShardWorker(Connection connection) {
+        this.connection = connection;
+    }
+
+    private void configure() throws IOException, InvalidOperationException {
+        connection.expect(Connection.CONFIG);
+        DataInputStream in = connection.in();
+        double lengthKm = in.readDouble();
+        int laneCount = in.readInt();
+        double speedLimit = in.readDouble();
+        double dropKm = in.readDouble();
+        double stepSeconds = in.readDouble();
+        int partitionCount = in.readInt();
+        double startKm = in.readDouble();
+        double endKm = in.readDouble();
+
+        Road road = Road.corridor(lengthKm, laneCount, speedLimit, dropKm);
+        lanes = road.getMaxLanes();
+        traffic = new RoadTraffic(road, stepSeconds, partitionCount, startKm, endKm);
+        List<Connection.Placed> placements = connection.readPlacements();
+        for (Connection.Placed p : placements) {
+            fleet.addVehicle(p.vehicle());
+            if (p.lane() < 0) {
+                traffic.add(p.vehicle());
+            } else {
+                traffic.place(p.vehicle(), p.lane(), p.positionKm());
+            }
+        }
+
+        DataOutputStream out = connection.out();
+        out.writeByte(Connection.READY);
+        out.writeInt(placements.size());
+        writeEnds(out);
+        connection.send();
+    }
+
+    // Returns false once told to stop.
+    private boolean step() throws IOException, InvalidOperationException {
+        DataInputStream in = connection.in();
+        byte type = in.readByte();
+        if (type == Connection.STOP) return false;
+        if (type != Connection.STEP) throw new IOException("Expected a step but got message " + type + ".");
+        for (int l = 0; l < lanes; l++) {
+            traffic.setDownstream(l, in.readDouble(), in.readDouble());
+            traffic.setUpstream(l, in.readDouble(), in.readDouble());
+        }
+        List<RoadHandoff> arrivals = connection.readHandoffs();
+
+        long begin = System.nanoTime();
+        for (RoadHandoff h : arrivals) {
+            fleet.addVehicle(h.vehicle());
+            traffic.arrive(h);
+        }
+        traffic.run(1);
+        List<RoadHandoff> departures = traffic.takeDepartures();
+        for (RoadHandoff h : departures) {
+            fleet.removeVehicle(h.vehicle().getId());
+        }
+        busyNanos += System.nanoTime() - begin;
+
+        DataOutputStream out = connection.out();
+        out.writeByte(Connection.STEPPED);
+        connection.writeHandoffs(departures);
+        writeEnds(out);
+        // The moves made in this step.
+        long moves = counter.getMoveCount();
+        out.writeLong(moves - movesReported);
+        movesReported = moves;
+        connection.send();
+        return true;
+    }
+
+    // The rear and front vehicle of every lane, for the shards either side.
+    private void writeEnds(DataOutputStream out) throws IOException {
+        for (int l = 0; l < lanes; l++) {
+            out.writeDouble(traffic.getRearBackKm(l));
+            out.writeDouble(traffic.getRearSpeed(l));
+            out.writeDouble(traffic.getFrontKm(l));
+            out.writeDouble(traffic.getFrontSpeed(l));
+        }
+    }
+
+    private void report() throws IOException {
+        DataOutputStream out = connection.out();
+        out.writeByte(Connection.STOPPED);
+        out.writeInt(traffic.getVehiclesOnRoad());
+        out.writeInt(traffic.getWaiting());
+        out.writeInt(traffic.getExited());
+        out.writeInt(traffic.getStalled());
+        out.writeLong(traffic.getLaneChanges());
+        out.writeDouble(traffic.getDistanceKm());
+        out.writeDouble(traffic.getMeanSpeed() * traffic.getVehiclesOnRoad());
+        out.writeLong(traffic.getVehicleSteps());
+        out.writeLong(busyNanos);
+        connection.send();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java distributed.ShardWorker <tcp:port|unix:path> <shard>");
+            return;
+        }
+        try (Connection connection = Connection.connect(args[0])) {
+            connection.out().writeByte(Connection.HELLO);
+            connection.out().writeInt(Integer.parseInt(args[1]));
+            connection.send();
+            ShardWorker worker = new ShardWorker(connection);
+            Vehicle.setMovementSink(worker.counter);
+            worker.configure();
+            try {
+                while (worker.step()) {
+                }
+                worker.report();
+            } finally {
+                worker.traffic.close();
+            }
+        } catch (IOException | InvalidOperationException | RuntimeException e) {
+            System.err.println("Shard " + args[1] + " failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package fleet;
+
+import java.util.*;
+import vehicle.*;
+import exception.*;
+import interfaces.CargoCarrier;
+import interfaces.FuelConsumable;
+import interfaces.Maintainable;
+import interfaces.PassengerCarrier;
+
+// Structure-of-arrays alternative to FleetManager. Each vehicle is a row spread across
+// parallel primitive columns, so fleet-wide scans are linear loops over double[] with no
+// virtual calls. Removal moves the last row into the freed slot, so row order is not the
+// insertion order once vehicles have been removed.
+public class ColumnarFleetStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final double[] MAINTENANCE_MILEAGE = new double[VehicleType.values().length];
+
+    static {
+        for (VehicleType type : VehicleType.values()) {
+            MAINTENANCE_MILEAGE[type.getCode()] = type.getMaintenanceMileage();
+        }
+    }
+
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private final Map<String, Integer> modelCodes = new HashMap<>();
+    private final List<String> modelNames = new ArrayList<>();
+
+    private int size = 0;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private byte[] typeCode = new byte[INITIAL_CAPACITY];
+    private int[] modelCode = new int[INITIAL_CAPACITY];
+    private double[] maxSpeed = new double[INITIAL_CAPACITY];
+    private double[] extra = new double[INITIAL_CAPACITY];
+    private double[] mileage = new double[INITIAL_CAPACITY];
+    private double[] fuel = new double[INITIAL_CAPACITY];
+    private int[] passengers = new int[INITIAL_CAPACITY];
+    private double[] cargo = new double[INITIAL_CAPACITY];
+    private double[] efficiency = new double[INITIAL_CAPACITY];
+    private boolean[] maintenanceFlag = new boolean[INITIAL_CAPACITY];
+
+    public static ColumnarFleetStore from(FleetManager fleetManager) throws InvalidOperationException {
+        List<Vehicle> vehicles = fleetManager.getFleet();
+        ColumnarFleetStore store = new ColumnarFleetStore();
+        store.ensureCapacity(vehicles.size());
+        for (Vehicle v : vehicles) {
+            store.addVehicle(v);
+        }
+        return store;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addVehicle(Vehicle vehicle) throws InvalidOperationException {
+        if (rowById.containsKey(vehicle.getId())) {
+            throw new InvalidOperationException("Duplicate ID detected: Vehicle with ID " + vehicle.getId() + " already exists.");
+        }
+        VehicleType type = VehicleType.of(vehicle);
+        ensureCapacity(size + 1);
+        int row = size++;
+        rowById.put(vehicle.getId(), row);
+
+        ids[row] = vehicle.getId();
+        typeCode[row] = type.getCode();
+        modelCode[row] = modelCodes.computeIfAbsent(vehicle.getModel(), m -> {
+            modelNames.add(m);
+            return modelNames.size() - 1;
+        });
+        maxSpeed[row] = vehicle.getMaxSpeed();
+        extra[row] = VehicleType.extraOf(vehicle);
+        mileage[row] = vehicle.getCurrentMileage();
+        fuel[row] = vehicle instanceof FuelConsumable fc ? fc.getFuelLevel() : 0.0;
+        passengers[row] = vehicle instanceof PassengerCarrier pc ? pc.getCurrentPassengers() : 0;
+        cargo[row] = vehicle instanceof CargoCarrier cc ? cc.getCurrentCargo() : 0.0;
+        efficiency[row] = vehicle.calculateFuelEfficiency();
+        maintenanceFlag[row] = vehicle instanceof Maintainable m && m.needsMaintenance()
+                && vehicle.getCurrentMileage() <= type.getMaintenanceMileage();
+    }
+
+    public void removeVehicle(String id) throws InvalidOperationException {
+        Integer row = rowById.remove(id);
+        if (row == null) {
+            throw new InvalidOperationException("Vehicle with ID " + id + " not found.");
+        }
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            typeCode[row] = typeCode[last];
+            modelCode[row] = modelCode[last];
+            maxSpeed[row] = maxSpeed[last];
+            extra[row] = extra[last];
+            mileage[row] = mileage[last];
+            fuel[row] = fuel[last];
+            passengers[row] = passengers[last];
+            cargo[row] = cargo[last];
+            efficiency[row] = efficiency[last];
+            maintenanceFlag[row] = maintenanceFlag[last];
+            rowById.put(ids[row], row);
+        }
+        ids[last] = null;
+    }
+
+    public void startAllJourneys(double distance) {
+        if (distance <= 0) {
+            for (int i = 0; i < size; i++) {
+                System.out.println("Cannot move vehicle " + ids[i] + ": Distance must be positive.");
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            // A zero efficiency marks a sailing ship, which moves without fuel.
+            if (efficiency[i] > 0) {
+                double needed = distance / efficiency[i];
+                if (needed > fuel[i]) {
+                    System.out.println("Cannot move vehicle " + ids[i] + ": "
+                            + VehicleType.fromCode(typeCode[i]).insufficientFuelMessage());
+                    continue;
+                }
+                fuel[i] -= needed;
+            }
+            mileage[i] += distance;
+        }
+    }
+
+    public double getTotalFuelConsumption(double distance) {
+        double totalConsumed = 0.0;
+        for (int i = 0; i < size; i++) {
+            totalConsumed += distance / efficiency[i];
+        }
+        return totalConsumed;
+    }
+
+    public void refuelAll(double amount) {
+        if (amount <= 0) {
+            System.out.println("Refuel amount must be positive.");
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (efficiency[i] > 0) {
+                fuel[i] += amount;
+            }
+        }
+        System.out.println(size + " fuel-consumable vehicles refueled with " + amount + " units.");
+    }
+
+    public void maintainAll() {
+        int maintainedCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (needsMaintenance(i)) {
+                maintenanceFlag[i] = false;
+                maintainedCount++;
+            }
+        }
+        if (maintainedCount == 0) {
+            System.out.println("No vehicles needed maintenance.");
+        } else {
+            System.out.println(maintainedCount + " vehicles maintained.");
+        }
+    }
+
+    public List<String> searchByType(Class<?> type) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (type.isAssignableFrom(classOf(typeCode[i]))) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+    public List<String> getVehiclesNeedingMaintenance() {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (needsMaintenance(i)) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+    public String generateReport() {
+        StringBuilder report = new StringBuilder("=== Fleet Report ===\n");
+        if (size == 0) {
+            report.append("No vehicles in the fleet.\n");
+            return report.toString();
+        }
+
+        report.append("Total vehicles: ").append(size).append("\n");
+
+        boolean[] modelSeen = new boolean[modelNames.size()];
+        int[] typeCounts = new int[VehicleType.values().length];
+        int distinctModels = 0;
+        int fastest = 0;
+        int slowest = 0;
+        double totalEfficiency = 0.0;
+        double totalMileage = 0.0;
+        int needsMaintenance = 0;
+        for (int i = 0; i < size; i++) {
+            if (!modelSeen[modelCode[i]]) {
+                modelSeen[modelCode[i]] = true;
+                distinctModels++;
+            }
+            typeCounts[typeCode[i]]++;
+            if (maxSpeed[i] > maxSpeed[fastest]) fastest = i;
+            if (maxSpeed[i] < maxSpeed[slowest]) slowest = i;
+            totalEfficiency += efficiency[i];
+            totalMileage += mileage[i];
+            if (needsMaintenance(i)) needsMaintenance++;
+        }
+        report.append("Distinct models: ").append(distinctModels).append("\n");
+
+        report.append("Vehicle counts by type:\n");
+        for (VehicleType type : VehicleType.REPORT_ORDER) {
+            if (typeCounts[type.getCode()] > 0) {
+                report.append("  ").append(type.getTypeName()).append(": ").append(typeCounts[type.getCode()]).append("\n");
+            }
+        }
+        report.append("Fastest vehicle: ").append(modelNames.get(modelCode[fastest]))
+            .append(" (").append(maxSpeed[fastest]).append(" km/h)\n");
+        report.append("Slowest vehicle: ").append(modelNames.get(modelCode[slowest]))
+            .append(" (").append(maxSpeed[slowest]).append(" km/h)\n");
+
+        report.append("Average fuel efficiency (for fuel-consumable vehicles): ")
+            .append(String.format("%.2f", totalEfficiency / size)).append(" km/l\n");
+        report.append("Total mileage: ").append(String.format("%.2f", totalMileage)).append(" km\n");
+        report.append("Vehicles needing maintenance: ").append(needsMaintenance).append("\n");
+
+        return report.toString();
+    }
+
+    public Vehicle toVehicle(String id) throws InvalidOperationException {
+        Integer row = rowById.get(id);
+        if (row == null) {
+            throw new InvalidOperationException("Vehicle with ID " + id + " not found.");
+        }
+        return toVehicle(row);
+    }
+
+    public List<Vehicle> toVehicles() throws InvalidOperationException {
+        List<Vehicle> vehicles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            vehicles.add(toVehicle(i));
+        }
+        return vehicles;
+    }
+
+    private Vehicle toVehicle(int row) throws InvalidOperationException {
+        Vehicle v = VehicleType.fromCode(typeCode[row]).create(ids[row], modelNames.get(modelCode[row]), maxSpeed[row], extra[row]);
+        try {
+            if (v instanceof PassengerCarrier pc && passengers[row] > 0) pc.boardPassengers(passengers[row]);
+            if (v instanceof CargoCarrier cc && cargo[row] > 0) cc.loadCargo(cargo[row]);
+        } catch (OverloadException e) {
+            throw new InvalidOperationException("Cannot restore load for " + ids[row] + ": " + e.getMessage());
+        }
+        if (mileage[row] > 0) v.addMileage(mileage[row]);
+        if (v instanceof FuelConsumable fc && fuel[row] > 0) fc.refuel(fuel[row]);
+        if (v instanceof Maintainable m && maintenanceFlag[row]) m.scheduleMaintenance();
+        return v;
+    }
+
+    private boolean needsMaintenance(int row) {
+        return maintenanceFlag[row] || mileage[row] > MAINTENANCE_MILEAGE[typeCode[row]];
+    }
+
+    private static Class<?> classOf(byte code) {
+        return switch (VehicleType.fromCode(code)) {
+            case CAR -> Car.class;
+            case TRUCK -> Truck.class;
+            case BUS -> Bus.class;
+            case AIRPLANE -> Airplane.class;
+            case CARGO_SHIP -> CargoShip.class;
+        };
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) return;
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        typeCode = Arrays.copyOf(typeCode, capacity);
+        modelCode = Arrays.copyOf(modelCode, capacity);
+        maxSpeed = Arrays.copyOf(maxSpeed, capacity);
+        extra = Arrays.copyOf(extra, capacity);
+        mileage = Arrays.copyOf(mileage, capacity);
+        fuel = Arrays.copyOf(fuel, capacity);
+        passengers = Arrays.copyOf(passengers, capacity);
+        cargo = Arrays.copyOf(cargo, capacity);
+        efficiency = Arrays.copyOf(efficiency, capacity);
+        maintenanceFlag = Arrays.copyOf(maintenanceFlag, capacity);
+    }
+}
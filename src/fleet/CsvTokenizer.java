@@ -0,0 +1,189 @@
+package fleet;
+
+import java.util.Arrays;
+
+// Splits CSV rows into fields without copying them. A tokenizer is reused row after row: it
+// records where each field starts and ends in int arrays that only grow, and numbers and
+// booleans are parsed straight from those ranges. Only text() makes a String.
+//
+// Same rules as FleetManager.saveToFile writes and ParallelCsvLoader reads: commas inside
+// quotes do not split, a doubled quote is a literal quote, and fields are trimmed of
+// whitespace, again after unquoting if they were quoted.
+final class CsvTokenizer {
+    static final int MAX_FAST_DIGITS = 15;
+    static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharSequence row;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fields;
+    private final StringBuilder scratch = new StringBuilder(64);
+
+    // Returns the number of fields in the row.
+    int split(CharSequence row) {
+        this.row = row;
+        fields = 0;
+        int end = row.length();
+        int from = 0;
+        boolean inQuotes = false;
+        boolean sawQuote = false;
+        for (int i = 0; i < end; i++) {
+            char c = row.charAt(i);
+            if (c == '"') {
+                sawQuote = true;
+                if (i + 1 < end && row.charAt(i + 1) == '"') {
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                addField(from, i, sawQuote);
+                from = i + 1;
+                sawQuote = false;
+            }
+        }
+        addField(from, end, sawQuote);
+        return fields;
+    }
+
+    int fieldCount() {
+        return fields;
+    }
+
+    boolean isEmpty(int f) {
+        return quoted[f] ? unquote(f, false) == 0 : starts[f] == ends[f];
+    }
+
+    // The field with quoting resolved; with dropQuotes, literal quotes go as well.
+    String text(int f, boolean dropQuotes) {
+        unquote(f, dropQuotes);
+        return scratch.toString();
+    }
+
+    String text(int f) {
+        return text(f, false);
+    }
+
+    boolean textEquals(int f, String s) {
+        if (quoted[f]) return text(f).equals(s);
+        int start = starts[f];
+        if (ends[f] - start != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (row.charAt(start + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // As Boolean.parseBoolean.
+    boolean parseBoolean(int f) {
+        if (quoted[f]) return Boolean.parseBoolean(text(f));
+        int start = starts[f];
+        if (ends[f] - start != 4) return false;
+        return (row.charAt(start) | 0x20) == 't' && (row.charAt(start + 1) | 0x20) == 'r'
+                && (row.charAt(start + 2) | 0x20) == 'u' && (row.charAt(start + 3) | 0x20) == 'e';
+    }
+
+    // As Integer.parseInt, including its exceptions.
+    int parseInt(int f) {
+        int start = starts[f];
+        int end = ends[f];
+        if (!quoted[f] && start < end && end - start <= 9) {
+            int i = start;
+            boolean negative = row.charAt(i) == '-';
+            if (negative || row.charAt(i) == '+') i++;
+            if (i < end) {
+                int value = 0;
+                for (; i < end; i++) {
+                    int digit = row.charAt(i) - '0';
+                    if (digit < 0 || digit > 9) break;
+                    value = value * 10 + digit;
+                }
+                if (i == end) return negative ? -value : value;
+            }
+        }
+        return Integer.parseInt(text(f));
+    }
+
+    // As Double.parseDouble, including its exceptions. Plain decimals with at most 15
+    // significant digits and a small exponent are exact in a double, so one division by an
+    // exact power of ten rounds correctly; everything else goes through Double.parseDouble.
+    double parseDouble(int f) {
+        int start = starts[f];
+        int end = ends[f];
+        if (quoted[f] || start == end) return Double.parseDouble(text(f));
+        int i = start;
+        boolean negative = row.charAt(i) == '-';
+        if (negative || row.charAt(i) == '+') i++;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = row.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    if (seenPoint) scale--;
+                    continue;
+                }
+                if (++digits > MAX_FAST_DIGITS) break;
+                mantissa = mantissa * 10 + (c - '0');
+                if (seenPoint) scale--;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (i != end || !seenDigit || -scale >= POW10.length) {
+            return Double.parseDouble(text(f));
+        }
+        double value = mantissa == 0 ? 0.0 : mantissa / POW10[-scale];
+        return negative ? -value : value;
+    }
+
+    private void addField(int start, int end, boolean wasQuoted) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+            quoted = Arrays.copyOf(quoted, fields * 2);
+        }
+        while (start < end && row.charAt(start) <= ' ') start++;
+        while (end > start && row.charAt(end - 1) <= ' ') end--;
+        starts[fields] = start;
+        ends[fields] = end;
+        quoted[fields] = wasQuoted;
+        fields++;
+    }
+
+    // Copies the field into scratch with quoting removed and returns the trimmed length.
+    private int unquote(int f, boolean dropQuotes) {
+        int start = starts[f];
+        int end = ends[f];
+        scratch.setLength(0);
+        for (int i = start; i < end; i++) {
+            char c = row.charAt(i);
+            if (c == '"') {
+                if (i + 1 < end && row.charAt(i + 1) == '"') {
+                    i++;
+                    if (!dropQuotes) scratch.append(c);
+                }
+                continue;
+            }
+            scratch.append(c);
+        }
+        if (!quoted[f]) return scratch.length();
+        int length = scratch.length();
+        while (length > 0 && scratch.charAt(length - 1) <= ' ') length--;
+        scratch.setLength(length);
+        int from = 0;
+        while (from < length && scratch.charAt(from) <= ' ') from++;
+        if (from > 0) scratch.delete(0, from);
+        return scratch.length();
+    }
+}
@@ -0,0 +1,421 @@
+package fleet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import vehicle.Vehicle;
+import interfaces.FuelConsumable;
+import interfaces.Maintainable;
+import interfaces.VehicleListener;
+
+// Secondary indexes behind FleetManager's type, maintenance and fuel queries and sorted views,
+// kept current as vehicles are added, removed and changed. Each tracked vehicle gets its own
+// Slot as listener, which remembers where the vehicle sits in every index so that an update
+// never searches. Fuel is indexed in one-litre buckets.
+//
+// Changes can come from many threads at once, so a change only flags the slot and queues it,
+// without a lock; the maintenance set, the fuel buckets and the sorted views catch up with the
+// queued vehicles when they are next read. A vehicle is queued once however often it changes
+// in between. Sorted views are built the first time an ordering is asked for.
+//
+// Each index is a plain array; a slot remembers its position there, so removal just leaves a
+// hole. The type and maintenance indexes answer in fleet order: every slot carries its vehicle's
+// fleet order key, and a bucket that has been appended to out of order, or whose keys changed
+// because the fleet was sorted, is sorted again when it is next read. Adds come in fleet order,
+// so most reads are a straight copy.
+class FleetIndex {
+    static final double FUEL_BUCKET_LITRES = 1.0;
+
+    private static final int TYPE = 0;
+    private static final int MAINTENANCE = 1;
+    private static final int FUEL = 2;
+    private static final long NOT_FUELED = Long.MIN_VALUE;
+    private static final AtomicIntegerFieldUpdater<Slot> DIRTY = AtomicIntegerFieldUpdater.newUpdater(Slot.class, "dirty");
+
+    private final Map<Class<?>, Bucket> byType = new LinkedHashMap<>();
+    private final Bucket needingMaintenance = new Bucket(MAINTENANCE);
+    private final TreeMap<Long, Bucket> byFuel = new TreeMap<>();
+    private final Map<String, Slot> slots = new HashMap<>();
+
+    // Every tracked vehicle has a handle into these arrays, reused after removal; sorted views
+    // refer to vehicles by handle.
+    private Vehicle[] vehicles = new Vehicle[16];
+    private long[] sequence = new long[16];
+    private int handleCount;
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private long nextSequence;
+
+    private final Map<SortKey, SortedView> views = new EnumMap<>(SortKey.class);
+    private final Queue<Slot> changed = new ConcurrentLinkedQueue<>();
+
+    // order is the vehicle's fleet order key, as FleetRegistry hands it out.
+    synchronized void track(Vehicle v, long order) {
+        Slot slot = new Slot(allocateHandle(v), order);
+        slots.put(v.getId(), slot);
+        byType.computeIfAbsent(v.getClass(), k -> new Bucket(TYPE)).add(v, slot);
+        slot.attached = true;
+        update(v, slot);
+        for (SortedView view : views.values()) {
+            view.insert(slot.handle);
+        }
+        v.addListener(slot);
+    }
+
+    synchronized void untrack(Vehicle v) {
+        Slot slot = slots.remove(v.getId());
+        if (slot == null) return;
+        v.removeListener(slot);
+        detach(v, slot);
+    }
+
+    synchronized void clear() {
+        // A move already past its listener lookup may still queue an old slot; catchUp skips it.
+        for (Slot slot : slots.values()) {
+            slot.attached = false;
+        }
+        for (Bucket bucket : byType.values()) {
+            for (int i = 0; i < bucket.end; i++) {
+                Vehicle v = bucket.vehicles[i];
+                if (v != null) v.removeListener(bucket.slots[i]);
+            }
+        }
+        byType.clear();
+        needingMaintenance.clear();
+        byFuel.clear();
+        slots.clear();
+        Arrays.fill(vehicles, 0, handleCount, null);
+        handleCount = 0;
+        freeCount = 0;
+        views.clear();
+        changed.clear();
+    }
+
+    // Vehicles at positions offset .. offset + limit - 1 of the given ordering.
+    synchronized List<Vehicle> sorted(SortKey key, int offset, int limit) {
+        SortedView view = views.get(key);
+        if (view == null) {
+            view = new SortedView(key, this);
+            view.ensureCapacity(vehicles.length);
+            for (int h = 0; h < handleCount; h++) {
+                if (vehicles[h] != null) view.insert(h);
+            }
+            views.put(key, view);
+        }
+        catchUp();
+        return view.page(offset, limit);
+    }
+
+    Vehicle vehicle(int handle) {
+        return vehicles[handle];
+    }
+
+    long sequence(int handle) {
+        return sequence[handle];
+    }
+
+    // In fleet order; the buckets of several classes are merged.
+    synchronized List<Vehicle> ofType(Class<?> type) {
+        List<Bucket> matching = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<Class<?>, Bucket> entry : byType.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                matching.add(entry.getValue());
+                size += entry.getValue().size;
+            }
+        }
+        List<Vehicle> result = new ArrayList<>(size);
+        if (matching.size() == 1) {
+            matching.get(0).appendTo(result);
+        } else if (!matching.isEmpty()) {
+            merge(matching, result);
+        }
+        return result;
+    }
+
+    // In fleet order.
+    synchronized List<Vehicle> needingMaintenance() {
+        catchUp();
+        List<Vehicle> result = new ArrayList<>(needingMaintenance.size);
+        needingMaintenance.appendTo(result);
+        return result;
+    }
+
+    // Takes the fleet order keys the registry assigned when it sorted the fleet.
+    synchronized void fleetReordered(FleetRegistry registry) {
+        registry.forEachWithOrder((v, order) -> {
+            Slot slot = slots.get(v.getId());
+            if (slot != null) slot.order = order;
+        });
+        for (Bucket bucket : byType.values()) {
+            bucket.ordered = false;
+        }
+        needingMaintenance.ordered = false;
+    }
+
+    // Fuel-consumable vehicles with min <= fuel level < max, lowest level first.
+    List<Vehicle> withFuelBetween(double min, double max) {
+        if (!(min < max)) return new ArrayList<>();
+        List<Vehicle> candidates = new ArrayList<>();
+        synchronized (this) {
+            catchUp();
+            for (Bucket bucket : byFuel.subMap(fuelBucketOf(min), true, fuelBucketOf(max), true).values()) {
+                bucket.appendTo(candidates);
+            }
+        }
+        // Levels are read once, as a running simulation may still be burning fuel.
+        List<Hit> hits = new ArrayList<>();
+        for (Vehicle v : candidates) {
+            double fuel = ((FuelConsumable) v).getFuelLevel();
+            if (fuel >= min && fuel < max) hits.add(new Hit(v, fuel));
+        }
+        hits.sort(Comparator.comparingDouble(Hit::fuel));
+        List<Vehicle> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.vehicle());
+        }
+        return result;
+    }
+
+    private void update(Vehicle v, Slot slot) {
+        boolean needsMaintenance = v instanceof Maintainable m && m.needsMaintenance();
+        if (needsMaintenance && slot.maintenancePosition < 0) {
+            needingMaintenance.add(v, slot);
+        } else if (!needsMaintenance && slot.maintenancePosition >= 0) {
+            needingMaintenance.remove(slot);
+        }
+        long fuelBucket = v instanceof FuelConsumable fc ? fuelBucketOf(fc.getFuelLevel()) : NOT_FUELED;
+        if (fuelBucket != slot.fuelBucket) {
+            if (slot.fuelBucket != NOT_FUELED) removeFromFuel(slot);
+            if (fuelBucket != NOT_FUELED) byFuel.computeIfAbsent(fuelBucket, k -> new Bucket(FUEL)).add(v, slot);
+            slot.fuelBucket = fuelBucket;
+        }
+    }
+
+    private void detach(Vehicle v, Slot slot) {
+        slot.attached = false;
+        for (SortedView view : views.values()) {
+            view.remove(slot.handle);
+        }
+        vehicles[slot.handle] = null;
+        if (freeCount == freeHandles.length) freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        freeHandles[freeCount++] = slot.handle;
+        Bucket typeBucket = byType.get(v.getClass());
+        typeBucket.remove(slot);
+        if (typeBucket.size == 0) byType.remove(v.getClass());
+        if (slot.maintenancePosition >= 0) needingMaintenance.remove(slot);
+        if (slot.fuelBucket != NOT_FUELED) removeFromFuel(slot);
+    }
+
+    private void removeFromFuel(Slot slot) {
+        Bucket bucket = byFuel.get(slot.fuelBucket);
+        bucket.remove(slot);
+        if (bucket.size == 0) byFuel.remove(slot.fuelBucket);
+        slot.fuelBucket = NOT_FUELED;
+    }
+
+    private int allocateHandle(Vehicle v) {
+        int h;
+        if (freeCount > 0) {
+            h = freeHandles[--freeCount];
+        } else {
+            if (handleCount == vehicles.length) {
+                int capacity = handleCount * 2;
+                vehicles = Arrays.copyOf(vehicles, capacity);
+                sequence = Arrays.copyOf(sequence, capacity);
+                for (SortedView view : views.values()) {
+                    view.ensureCapacity(capacity);
+                }
+            }
+            h = handleCount++;
+        }
+        vehicles[h] = v;
+        sequence[h] = nextSequence++;
+        return h;
+    }
+
+    // Refiles every vehicle queued since the last read. The flag is cleared before the vehicle
+    // is looked at, so a change made meanwhile queues it again.
+    private void catchUp() {
+        Slot slot;
+        while ((slot = changed.poll()) != null) {
+            slot.dirty = 0;
+            if (!slot.attached) continue;
+            update(vehicles[slot.handle], slot);
+            for (SortedView view : views.values()) {
+                if (view.key().isMutable()) view.refresh(slot.handle);
+            }
+        }
+    }
+
+    private static void merge(List<Bucket> buckets, List<Vehicle> out) {
+        int[] cursors = new int[buckets.size()];
+        for (Bucket bucket : buckets) {
+            bucket.ensureOrdered();
+        }
+        while (true) {
+            int next = -1;
+            long nextOrder = Long.MAX_VALUE;
+            for (int b = 0; b < cursors.length; b++) {
+                Bucket bucket = buckets.get(b);
+                while (cursors[b] < bucket.end && bucket.slots[cursors[b]] == null) cursors[b]++;
+                if (cursors[b] < bucket.end && bucket.slots[cursors[b]].order < nextOrder) {
+                    next = b;
+                    nextOrder = bucket.slots[cursors[b]].order;
+                }
+            }
+            if (next < 0) return;
+            out.add(buckets.get(next).vehicles[cursors[next]++]);
+        }
+    }
+
+    private static long fuelBucketOf(double fuel) {
+        return (long) Math.floor(fuel / FUEL_BUCKET_LITRES);
+    }
+
+    private record Hit(Vehicle vehicle, double fuel) {
+    }
+
+    private final class Slot implements VehicleListener {
+        private final int handle;
+        // Fleet order key; guarded by the index.
+        private long order;
+        private boolean attached;
+        // 1 while the slot is queued in changed.
+        private volatile int dirty;
+        private int typePosition = -1;
+        private int maintenancePosition = -1;
+        private int fuelPosition = -1;
+        private long fuelBucket = NOT_FUELED;
+
+        Slot(int handle, long order) {
+            this.handle = handle;
+            this.order = order;
+        }
+
+        @Override
+        public void mileageChanged(Vehicle vehicle, double delta) {
+            markChanged();
+        }
+
+        @Override
+        public void vehicleChanged(Vehicle vehicle) {
+            markChanged();
+        }
+
+        private void markChanged() {
+            if (dirty == 0 && DIRTY.compareAndSet(this, 0, 1)) {
+                changed.add(this);
+            }
+        }
+
+        int position(int kind) {
+            return switch (kind) {
+                case TYPE -> typePosition;
+                case MAINTENANCE -> maintenancePosition;
+                default -> fuelPosition;
+            };
+        }
+
+        void setPosition(int kind, int position) {
+            switch (kind) {
+                case TYPE -> typePosition = position;
+                case MAINTENANCE -> maintenancePosition = position;
+                default -> fuelPosition = position;
+            }
+        }
+    }
+
+    // Set with O(1) removal: a removed vehicle leaves a hole, and the array is compacted once
+    // holes outnumber vehicles. Kept in fleet order while ordered is true.
+    private static final class Bucket {
+        private final int kind;
+        private Vehicle[] vehicles = new Vehicle[4];
+        private Slot[] slots = new Slot[4];
+        private int end;
+        private int size;
+        private boolean ordered = true;
+
+        Bucket(int kind) {
+            this.kind = kind;
+        }
+
+        void add(Vehicle v, Slot slot) {
+            if (end == vehicles.length) {
+                vehicles = Arrays.copyOf(vehicles, end * 2);
+                slots = Arrays.copyOf(slots, end * 2);
+            }
+            if (ordered && end > 0 && slots[end - 1] != null && slots[end - 1].order > slot.order) ordered = false;
+            vehicles[end] = v;
+            slots[end] = slot;
+            slot.setPosition(kind, end);
+            end++;
+            size++;
+        }
+
+        void remove(Slot slot) {
+            int position = slot.position(kind);
+            vehicles[position] = null;
+            slots[position] = null;
+            slot.setPosition(kind, -1);
+            size--;
+            if (position == end - 1) {
+                end--;
+            } else if (end - size > size) {
+                compact();
+            }
+        }
+
+        void clear() {
+            Arrays.fill(vehicles, 0, end, null);
+            Arrays.fill(slots, 0, end, null);
+            end = 0;
+            size = 0;
+            ordered = true;
+        }
+
+        // Fuel bucket readers order by level themselves, so only the other kinds are sorted.
+        void appendTo(List<Vehicle> out) {
+            if (kind != FUEL) ensureOrdered();
+            for (int i = 0; i < end; i++) {
+                if (vehicles[i] != null) out.add(vehicles[i]);
+            }
+        }
+
+        // Sorts the vehicles by fleet order key, dropping the holes. The usual case, an ordered
+        // array with a few late appends, sorts in close to linear time.
+        void ensureOrdered() {
+            if (ordered) return;
+            compact();
+            Integer[] byOrder = new Integer[end];
+            for (int i = 0; i < end; i++) {
+                byOrder[i] = i;
+            }
+            Arrays.sort(byOrder, Comparator.comparingLong(i -> slots[i].order));
+            Vehicle[] sortedVehicles = new Vehicle[vehicles.length];
+            Slot[] sortedSlots = new Slot[slots.length];
+            for (int i = 0; i < end; i++) {
+                sortedVehicles[i] = vehicles[byOrder[i]];
+                sortedSlots[i] = slots[byOrder[i]];
+                sortedSlots[i].setPosition(kind, i);
+            }
+            vehicles = sortedVehicles;
+            slots = sortedSlots;
+            ordered = true;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < end; i++) {
+                if (vehicles[i] == null) continue;
+                vehicles[kept] = vehicles[i];
+                slots[kept] = slots[i];
+                slots[kept].setPosition(kind, kept);
+                kept++;
+            }
+            Arrays.fill(vehicles, kept, end, null);
+            Arrays.fill(slots, kept, end, null);
+            end = kept;
+        }
+    }
+}
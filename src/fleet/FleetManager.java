@@ -1,6 +1,10 @@
 package fleet;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.io.*;
 import vehicle.*;
 import exception.*;
@@ -8,70 +12,60 @@ import interfaces.FuelConsumable;
 import interfaces.Maintainable;
 import interfaces.PassengerCarrier;
 import interfaces.CargoCarrier;
+import metrics.Metrics;
 
 public class FleetManager {
-    private List<Vehicle> fleet;
-    private Map<String, Vehicle> vehicleMap = new HashMap<>();
-    private Set<String> idSet = new HashSet<>();
-
+    // Fleet-wide operations split the fleet into ranges of at most this many vehicles.
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+    private static final VehicleType[] TYPES = VehicleType.values();
 
+    // Safe for concurrent adds, removes and reads; see FleetRegistry.
+    private final FleetRegistry registry = new FleetRegistry(this::track, this::untrack);
+    private final FleetStatistics statistics;
+    private final FleetIndex index = new FleetIndex();
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
 
     public FleetManager() {
-        fleet = new ArrayList<>();
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
     }
 
-    private Vehicle createVehicleBaseFromCSV(String[] data) throws InvalidOperationException {
-        if (data.length < 4) {
-            throw new InvalidOperationException("Invalid CSV data for vehicle creation: insufficient fields.");
-        }
-
-        String type = data[0].trim();
-        String id = data[1].trim();
-        String model = data[2].trim();
+    public FleetManager(ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold <= 0) throw new IllegalArgumentException("Parallel threshold must be positive.");
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        statistics = new FleetStatistics(registry);
+    }
 
+    // The vehicle described by the first five fields of a CSV row.
+    private static Vehicle createVehicleFromCSV(CsvTokenizer row, String type, String id, String model)
+            throws InvalidOperationException {
         double maxSpeed;
         try {
-            maxSpeed = Double.parseDouble(data[3]);
+            maxSpeed = row.parseDouble(3);
         } catch (NumberFormatException e) {
-            throw new InvalidOperationException("Invalid maxSpeed in CSV data for " + type + " " + id + ": " + data[3]);
+            throw new InvalidOperationException("Invalid maxSpeed in CSV data for " + type + " " + id + ": " + row.text(3));
         }
-
+        VehicleType vehicleType;
         try {
-            switch (type) {
-                case "Car": {
-                    if (data.length < 5) throw new InvalidOperationException("Insufficient data for Car " + id + ".");
-                    int numWheels = Integer.parseInt(data[4]);
-                    return new Car(id, model, maxSpeed, numWheels);
-                }
-                case "Truck": {
-                    if (data.length < 5) throw new InvalidOperationException("Insufficient data for Truck " + id + ".");
-                    int numWheels = Integer.parseInt(data[4]);
-                    return new Truck(id, model, maxSpeed, numWheels);
-                }
-                case "Bus": {
-                    if (data.length < 5) throw new InvalidOperationException("Insufficient data for Bus " + id + ".");
-                    int numWheels = Integer.parseInt(data[4]);
-                    return new Bus(id, model, maxSpeed, numWheels);
-                }
-                case "Airplane": {
-                    if (data.length < 5) throw new InvalidOperationException("Insufficient data for Airplane " + id + ".");
-                    double maxAltitude = Double.parseDouble(data[4]);
-                    return new Airplane(id, model, maxSpeed, maxAltitude);
-                }
-                case "CargoShip": {
-                    if (data.length < 5) throw new InvalidOperationException("Insufficient data for CargoShip " + id + ".");
-                    boolean hasSail = Boolean.parseBoolean(data[4]);
-                    return new CargoShip(id, model, maxSpeed, hasSail);
-                }
-                default:
-                    throw new InvalidOperationException("Unknown vehicle type in CSV: " + type);
-            }
+            vehicleType = VehicleType.fromName(type);
+        } catch (InvalidOperationException e) {
+            throw new InvalidOperationException("Unknown vehicle type in CSV: " + type);
+        }
+        try {
+            double extra = switch (vehicleType) {
+                case CAR, TRUCK, BUS -> row.parseInt(4);
+                case AIRPLANE -> row.parseDouble(4);
+                case CARGO_SHIP -> row.parseBoolean(4) ? 1.0 : 0.0;
+            };
+            return vehicleType.create(id, model, maxSpeed, extra);
         } catch (NumberFormatException e) {
             throw new InvalidOperationException("Number format error creating " + type + " " + id + ": " + e.getMessage());
         }
     }
 
     public void saveToFile(String filename) {
+        long begin = Metrics.SAVE_TO_FILE.begin();
         if (!filename.toLowerCase().endsWith(".csv")) {
             filename += ".csv";
         }
@@ -80,7 +74,7 @@ public class FleetManager {
             writer.write("Type,Id,Model,MaxSpeed,ExtraParam1,ExtraParam2,Passengers,Cargo,Mileage,FuelLevel,MaintenanceNeeded");
             writer.newLine();
 
-            for (Vehicle v : fleet) {
+            for (Vehicle v : registry.snapshot()) {
                 StringBuilder line = new StringBuilder();
 
                 line.append(v.getClass().getSimpleName()).append(",");
@@ -127,18 +121,49 @@ public class FleetManager {
         } catch (IOException e) {
             System.out.println("Error saving fleet to " + filename + ": " + e.getMessage());
         }
+        Metrics.SAVE_TO_FILE.end(begin);
     }
 
 
 
+    public void saveSnapshot(String filename) {
+        if (!filename.toLowerCase().endsWith(".fleet")) {
+            filename += ".fleet";
+        }
+        try {
+            FleetSnapshot.write(registry.snapshot(), java.nio.file.Path.of(filename));
+            System.out.println("Fleet snapshot saved to " + filename);
+        } catch (IOException | java.nio.file.InvalidPathException e) {
+            System.out.println("Error saving fleet snapshot to " + filename + ": " + e.getMessage());
+        }
+    }
+
+    public void loadSnapshot(String filename) {
+        try {
+            List<Vehicle> loaded = FleetSnapshot.read(java.nio.file.Path.of(filename));
+            Set<String> loadedIds = new HashSet<>();
+            for (Vehicle v : loaded) {
+                if (!loadedIds.add(v.getId())) {
+                    throw new InvalidOperationException("Duplicate ID detected: Vehicle with ID " + v.getId() + " already exists.");
+                }
+            }
+            replaceFleet(loaded);
+            System.out.println("Fleet snapshot loaded from " + filename);
+        } catch (IOException | InvalidOperationException | java.nio.file.InvalidPathException e) {
+            System.out.println("Error loading fleet snapshot from " + filename + ": " + e.getMessage());
+        }
+    }
+
     public void loadFromFile(String filename) {
+        long begin = Metrics.LOAD_FROM_FILE.begin();
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            fleet.clear();
-            idSet.clear();
+            untrackAll();
+            registry.clear();
 
             String line;
             boolean firstLine = true;
             int lineNumber = 0;
+            CsvTokenizer row = new CsvTokenizer();
 
             while ((line = reader.readLine()) != null) {
                 lineNumber++;
@@ -148,69 +173,39 @@ public class FleetManager {
                 }
                 if (line.trim().isEmpty()) continue;
 
-                String[] data = parseCSVLine(line);
-
-                if (data.length < 11) {
+                if (row.split(line) < 11) {
                     System.out.println("Warning: Skipping line " + lineNumber + " due to insufficient fields: " + line);
                     continue;
                 }
 
                 try {
-                    String type = data[0].trim();
-                    String id = data[1].trim();
-                    String model = data[2].replace("\"", "").trim();
-                    String extra1 = data[4].trim();
-                    String passengersStr = data[6].trim();
-                    String cargoStr = data[7].trim();
-                    double mileage = Double.parseDouble(data[8]);
-                    double fuelLevel = Double.parseDouble(data[9]);
-                    boolean maintenanceNeeded = Boolean.parseBoolean(data[10]);
-                    Vehicle v = createVehicleBaseFromCSV(new String[]{type, id, model, data[3], extra1});
-                    if (v instanceof PassengerCarrier pc && !passengersStr.isEmpty()) {
+                    String type = typeName(row);
+                    String id = row.text(1);
+                    String model = row.text(2, true);
+                    double mileage = row.parseDouble(8);
+                    double fuelLevel = row.parseDouble(9);
+                    boolean maintenanceNeeded = row.parseBoolean(10);
+                    Vehicle v = createVehicleFromCSV(row, type, id, model);
+                    int passengers = -1;
+                    if (v instanceof PassengerCarrier && !row.isEmpty(6)) {
                         try {
-                            int passengers = Integer.parseInt(passengersStr);
-                            if (passengers > pc.getCurrentPassengers()) {
-                                pc.boardPassengers(passengers - pc.getCurrentPassengers());
-                            } else if (passengers < pc.getCurrentPassengers()) {
-                                pc.disembarkPassengers(pc.getCurrentPassengers() - passengers);
-                            }
-                        } catch (Exception e) {
+                            passengers = row.parseInt(6);
+                        } catch (NumberFormatException e) {
                             System.out.println("Warning: Could not restore passengers for " + id + ": " + e.getMessage());
                         }
                     }
-                    if (v instanceof CargoCarrier cc && !cargoStr.isEmpty()) {
+                    double cargo = Double.NaN;
+                    if (v instanceof CargoCarrier && !row.isEmpty(7)) {
                         try {
-                            double cargo = Double.parseDouble(cargoStr);
-                            if (cargo > cc.getCurrentCargo()) {
-                                cc.loadCargo(cargo - cc.getCurrentCargo());
-                            } else if (cargo < cc.getCurrentCargo()) {
-                                cc.unloadCargo(cc.getCurrentCargo() - cargo);
-                            }
-                        } catch (Exception e) {
+                            cargo = row.parseDouble(7);
+                        } catch (NumberFormatException e) {
                             System.out.println("Warning: Could not restore cargo for " + id + ": " + e.getMessage());
                         }
                     }
-                    if (mileage > 0) {
-                        try {
-                            v.addMileage(mileage);
-                        } catch (InvalidOperationException e) {
-                            System.out.println("Warning: Could not restore mileage for " + id + ": " + e.getMessage());
-                        }
-                    }
-                    if (v instanceof FuelConsumable fc) {
-                        try {
-                            if (fuelLevel > 0) {
-                                fc.refuel(fuelLevel);
-                            }
-                        } catch (InvalidOperationException e) {
-                            System.out.println("Warning: Could not restore fuel for " + id + ": " + e.getMessage());
-                        }
-                    }
-                    if (v instanceof Maintainable m && maintenanceNeeded) {
-                        m.scheduleMaintenance();
+                    restoreState(v, passengers, cargo, mileage, fuelLevel, maintenanceNeeded, System.out::println);
+                    if (!registry.add(v)) {
+                        System.out.println("Warning: Skipping line " + lineNumber + " with duplicate ID " + v.getId());
                     }
-                    fleet.add(v);
-                    idSet.add(v.getId());
 
                 } catch (Exception e) {
                     System.out.println("Skipping invalid line " + lineNumber + ": " + e.getMessage());
@@ -222,68 +217,165 @@ public class FleetManager {
         } catch (IOException e) {
             System.out.println("Error loading fleet from " + filename + ": " + e.getMessage());
         }
+        Metrics.LOAD_FROM_FILE.end(begin);
     }
 
 
-    private String[] parseCSVLine(String line) {
-        List<String> tokens = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '\"') {
-                if (i + 1 < line.length() && line.charAt(i + 1) == '\"') {
-                    sb.append('\"');
-                    i++;
-                } else {
-                    inQuotes = !inQuotes;
+    public void loadFromFileParallel(String filename) {
+        loadFromFileParallel(filename, new ParallelCsvLoader());
+    }
+
+    public void loadFromFileParallel(String filename, ParallelCsvLoader loader) {
+        try {
+            List<Vehicle> loaded = loader.load(java.nio.file.Path.of(filename), System.out::println);
+            replaceFleet(loaded);
+            System.out.println("Fleet loaded successfully from " + filename);
+        } catch (IOException | java.nio.file.InvalidPathException e) {
+            System.out.println("Error loading fleet from " + filename + ": " + e.getMessage());
+        }
+    }
+
+    // Installs vehicles whose ids are already known to be unique.
+    private void replaceFleet(List<Vehicle> vehicles) {
+        untrackAll();
+        registry.clear();
+        for (Vehicle v : vehicles) {
+            registry.add(v);
+        }
+    }
+
+    private void track(Vehicle v, long order) {
+        statistics.track(v);
+        index.track(v, order);
+    }
+
+    private void untrack(Vehicle v) {
+        statistics.untrack(v);
+        index.untrack(v);
+    }
+
+    // Must run while the registry still holds the vehicles, so their listeners can be removed.
+    private void untrackAll() {
+        statistics.clear();
+        index.clear();
+    }
+
+    // Replays a saved snapshot onto a freshly built vehicle through its public mutators.
+    // passengers < 0 and a NaN cargo mean the column was empty; problems go to warnings.
+    static void restoreState(Vehicle v, int passengers, double cargo, double mileage, double fuelLevel,
+                             boolean maintenanceNeeded, Consumer<String> warnings) {
+        String id = v.getId();
+        if (v instanceof PassengerCarrier pc && passengers >= 0) {
+            try {
+                if (passengers > pc.getCurrentPassengers()) {
+                    pc.boardPassengers(passengers - pc.getCurrentPassengers());
+                } else if (passengers < pc.getCurrentPassengers()) {
+                    pc.disembarkPassengers(pc.getCurrentPassengers() - passengers);
                 }
-            } else if (c == ',' && !inQuotes) {
-                tokens.add(sb.toString().trim());
-                sb.setLength(0);
-            } else {
-                sb.append(c);
+            } catch (Exception e) {
+                warnings.accept("Warning: Could not restore passengers for " + id + ": " + e.getMessage());
+            }
+        }
+        if (v instanceof CargoCarrier cc && !Double.isNaN(cargo)) {
+            try {
+                if (cargo > cc.getCurrentCargo()) {
+                    cc.loadCargo(cargo - cc.getCurrentCargo());
+                } else if (cargo < cc.getCurrentCargo()) {
+                    cc.unloadCargo(cc.getCurrentCargo() - cargo);
+                }
+            } catch (Exception e) {
+                warnings.accept("Warning: Could not restore cargo for " + id + ": " + e.getMessage());
+            }
+        }
+        if (mileage > 0) {
+            try {
+                v.addMileage(mileage);
+            } catch (InvalidOperationException e) {
+                warnings.accept("Warning: Could not restore mileage for " + id + ": " + e.getMessage());
+            }
+        }
+        if (v instanceof FuelConsumable fc) {
+            try {
+                if (fuelLevel > 0) {
+                    fc.refuel(fuelLevel);
+                }
+            } catch (InvalidOperationException e) {
+                warnings.accept("Warning: Could not restore fuel for " + id + ": " + e.getMessage());
             }
         }
-        tokens.add(sb.toString().trim());
-        return tokens.toArray(new String[0]);
+        if (v instanceof Maintainable m && maintenanceNeeded) {
+            m.scheduleMaintenance();
+        }
+    }
+
+    // The type field as one of the shared VehicleType names, so that a row does not need a
+    // String of its own for it.
+    private static String typeName(CsvTokenizer row) {
+        for (VehicleType type : TYPES) {
+            if (row.textEquals(0, type.getTypeName())) return type.getTypeName();
+        }
+        return row.text(0);
     }
 
 
     public void addVehicle(Vehicle vehicle) throws InvalidOperationException {
-    if (!idSet.add(vehicle.getId())) {
+    if (!registry.add(vehicle)) {
         throw new InvalidOperationException("Duplicate ID detected: Vehicle with ID " + vehicle.getId() + " already exists.");
     }
-
-    fleet.add(vehicle);
-    vehicleMap.put(vehicle.getId(), vehicle);
 }
 
 
     public void removeVehicle(String id) throws InvalidOperationException {
-        Vehicle removed = vehicleMap.remove(id);
-        if (removed == null) {
+        if (registry.remove(id) == null) {
             throw new InvalidOperationException("Vehicle with ID " + id + " not found.");
         }
-        fleet.remove(removed);
-        idSet.remove(id);
     }
 
 
 
+    // startAllJourneys, moveAll, refuelAll and maintainAll work on vehicles in parallel once
+    // the fleet exceeds the parallel threshold. Each vehicle's outcome goes to its own slot of
+    // an array, including the console lines the vehicle itself prints (held back through
+    // Vehicle.holdConsoleLines), and the slots are printed afterwards in fleet order.
     public void startAllJourneys(double distance) {
-        for (Vehicle v : fleet) {
+        Vehicle[] vehicles = registry.snapshot().toArray(new Vehicle[0]);
+        String[] output = new String[vehicles.length];
+        boolean console = Vehicle.getMovementSink() == Vehicle.CONSOLE_SINK;
+        forEachVehicle(vehicles.length, i -> {
+            StringBuilder held = console ? new StringBuilder() : null;
+            Vehicle.holdConsoleLines(held);
             try {
-                v.move(distance);
+                vehicles[i].move(distance);
             } catch (InvalidOperationException | InsufficientFuelException e) {
-                System.out.println("Cannot move vehicle " + v.getId() + ": " + e.getMessage());
+                output[i] = "Cannot move vehicle " + vehicles[i].getId() + ": " + e.getMessage() + System.lineSeparator();
+            } finally {
+                Vehicle.holdConsoleLines(null);
             }
+            if (held != null && !held.isEmpty()) output[i] = held.toString();
+        });
+        printInOrder(output);
+    }
+
+    // Moves every vehicle like startAllJourneys but without exceptions or failure messages.
+    // results[i] is the Vehicle.MOVE_* code for the i-th vehicle of getFleet().
+    public byte[] moveAll(double distance) {
+        Vehicle[] vehicles = registry.snapshot().toArray(new Vehicle[0]);
+        byte[] results = new byte[vehicles.length];
+        forEachVehicle(vehicles.length, i -> results[i] = vehicles[i].tryMove(distance));
+        return results;
+    }
+
+    public static int countFailures(byte[] moveResults) {
+        int failures = 0;
+        for (byte result : moveResults) {
+            if (result != Vehicle.MOVE_OK) failures++;
         }
+        return failures;
     }
 
     public double getTotalFuelConsumption(double distance) {
         double totalConsumed = 0.0;
-        for (Vehicle v : fleet) {
+        for (Vehicle v : registry.snapshot()) {
             if (v instanceof FuelConsumable) {
                 totalConsumed += distance / v.calculateFuelEfficiency();
             }
@@ -296,28 +388,52 @@ public class FleetManager {
             System.out.println("Refuel amount must be positive.");
             return;
         }
-        int refueledCount = 0;
-        for (Vehicle v : fleet) {
-            if (v instanceof FuelConsumable fc) {
+        Vehicle[] vehicles = registry.snapshot().toArray(new Vehicle[0]);
+        String[] failures = new String[vehicles.length];
+        boolean[] refueled = new boolean[vehicles.length];
+        forEachVehicle(vehicles.length, i -> {
+            if (vehicles[i] instanceof FuelConsumable fc) {
+                long begin = Metrics.REFUEL.begin();
                 try {
                     fc.refuel(amount);
-                    refueledCount++;
+                    refueled[i] = true;
                 } catch (InvalidOperationException e) {
-                    System.out.println("Could not refuel vehicle " + v.getId() + ": " + e.getMessage());
+                    failures[i] = e.getMessage();
                 }
+                Metrics.REFUEL.end(begin);
+            }
+        });
+        int refueledCount = 0;
+        for (int i = 0; i < vehicles.length; i++) {
+            if (refueled[i]) {
+                refueledCount++;
+            } else if (failures[i] != null) {
+                System.out.println("Could not refuel vehicle " + vehicles[i].getId() + ": " + failures[i]);
             }
         }
         System.out.println(refueledCount + " fuel-consumable vehicles refueled with " + amount + " units.");
     }
 
     public void maintainAll() {
-        int maintainedCount = 0;
-        for (Vehicle v : fleet) {
-            if (v instanceof Maintainable m && m.needsMaintenance()) {
-                m.performMaintenance();
-                maintainedCount++;
+        Vehicle[] vehicles = registry.snapshot().toArray(new Vehicle[0]);
+        String[] output = new String[vehicles.length];
+        forEachVehicle(vehicles.length, i -> {
+            if (vehicles[i] instanceof Maintainable m && m.needsMaintenance()) {
+                StringBuilder held = new StringBuilder();
+                Vehicle.holdConsoleLines(held);
+                try {
+                    m.performMaintenance();
+                } finally {
+                    Vehicle.holdConsoleLines(null);
+                }
+                output[i] = held.toString();
             }
+        });
+        int maintainedCount = 0;
+        for (String line : output) {
+            if (line != null) maintainedCount++;
         }
+        printInOrder(output);
         if (maintainedCount == 0) {
             System.out.println("No vehicles needed maintenance.");
         } else {
@@ -325,110 +441,96 @@ public class FleetManager {
         }
     }
 
-    public List<Vehicle> searchByType(Class<?> type) {
-        List<Vehicle> result = new ArrayList<>();
-        for (Vehicle v : fleet) {
-            if (type.isInstance(v)) {
-                result.add(v);
+    // Prints the non-null slots in order, a large block at a time rather than a line at a time.
+    private static void printInOrder(String[] output) {
+        StringBuilder block = new StringBuilder();
+        for (String text : output) {
+            if (text == null) continue;
+            block.append(text);
+            if (block.length() >= 1 << 16) {
+                System.out.print(block);
+                block.setLength(0);
             }
         }
-        return result;
+        if (!block.isEmpty()) System.out.print(block);
+    }
+
+    // Served from FleetIndex, in fleet order like a scan of the fleet.
+    public List<Vehicle> searchByType(Class<?> type) {
+        return index.ofType(type);
     }
 
     public List<Vehicle> getVehiclesNeedingMaintenance() {
-        List<Vehicle> result = new ArrayList<>();
-        for (Vehicle v : fleet) {
-            if (v instanceof Maintainable m && m.needsMaintenance()) {
-                result.add(v);
-            }
-        }
-        return result;
+        return index.needingMaintenance();
+    }
+
+    // Fuel-consumable vehicles with minFuel <= fuel level < maxFuel, lowest level first.
+    public List<Vehicle> getVehiclesWithFuelBetween(double minFuel, double maxFuel) {
+        return index.withFuelBetween(minFuel, maxFuel);
+    }
+
+    public List<Vehicle> getVehiclesWithFuelBelow(double maxFuel) {
+        return index.withFuelBetween(Double.NEGATIVE_INFINITY, maxFuel);
     }
 
     public void sortFleetByEfficiency() {
-        Collections.sort(fleet);
+        sortFleet(Comparator.naturalOrder());
     }
     
 
     public String generateReport() {
+        long begin = Metrics.GENERATE_REPORT.begin();
+        String report = buildReport();
+        Metrics.GENERATE_REPORT.end(begin);
+        return report;
+    }
+
+    private String buildReport() {
         StringBuilder report = new StringBuilder("=== Fleet Report ===\n");
-        if (fleet.isEmpty()) {
+        Vehicle fastest = statistics.getFastest();
+        Vehicle slowest = statistics.getSlowest();
+        if (registry.isEmpty() || fastest == null || slowest == null) {
             report.append("No vehicles in the fleet.\n");
             return report.toString();
         }
 
-        report.append("Total vehicles: ").append(fleet.size()).append("\n");
-        Set<String> distinctModels = new HashSet<>();
-        for (Vehicle v : fleet) {
-            distinctModels.add(v.getModel());
-        }
-        report.append("Distinct models: ").append(distinctModels.size()).append("\n");
+        report.append("Total vehicles: ").append(registry.size()).append("\n");
+        report.append("Distinct models: ").append(statistics.getDistinctModels()).append("\n");
 
-        Map<String, Integer> countByType = new HashMap<>();
-        for (Vehicle v : fleet) {
-            String typeName = v.getClass().getSimpleName();
-            countByType.put(typeName, countByType.getOrDefault(typeName, 0) + 1);
-        }
         report.append("Vehicle counts by type:\n");
-        for (Map.Entry<String, Integer> entry : countByType.entrySet()) {
+        for (Map.Entry<String, Integer> entry : statistics.getCountByType().entrySet()) {
             report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
         }
-        Vehicle fastest = Collections.max(fleet, Comparator.comparingDouble(Vehicle::getMaxSpeed));
-        Vehicle slowest = Collections.min(fleet, Comparator.comparingDouble(Vehicle::getMaxSpeed));
         report.append("Fastest vehicle: ").append(fastest.getModel())
             .append(" (").append(fastest.getMaxSpeed()).append(" km/h)\n");
         report.append("Slowest vehicle: ").append(slowest.getModel())
             .append(" (").append(slowest.getMaxSpeed()).append(" km/h)\n");
 
-        double totalEfficiency = 0.0;
-        int fuelConsumableCount = 0;
-        for (Vehicle v : fleet) {
-            if (v instanceof FuelConsumable) {
-                totalEfficiency += v.calculateFuelEfficiency();
-                fuelConsumableCount++;
-            }
-        }
-        double avgEfficiency = 0.0;
-        if (fuelConsumableCount > 0) {
-            avgEfficiency = totalEfficiency / fuelConsumableCount;
-        }
         report.append("Average fuel efficiency (for fuel-consumable vehicles): ")
-            .append(String.format("%.2f", avgEfficiency)).append(" km/l\n");
-
-        double totalMileage = 0.0;
-        for (Vehicle v : fleet) {
-            totalMileage += v.getCurrentMileage();
-        }
-        report.append("Total mileage: ").append(String.format("%.2f", totalMileage)).append(" km\n");
-
-        int needsMaintenance = 0;
-        for (Vehicle v : fleet) {
-            if (v instanceof Maintainable m && m.needsMaintenance()) {
-                needsMaintenance++;
-            }
-        }
-        report.append("Vehicles needing maintenance: ").append(needsMaintenance).append("\n");
+            .append(String.format("%.2f", statistics.getAverageEfficiency())).append(" km/l\n");
+        report.append("Total mileage: ").append(String.format("%.2f", statistics.getTotalMileage())).append(" km\n");
+        report.append("Vehicles needing maintenance: ").append(statistics.getVehiclesNeedingMaintenance()).append("\n");
 
         return report.toString();
     }
     public void sortById() {
-        Collections.sort(fleet, Comparator.comparing(Vehicle::getId));
+        sortFleet(Comparator.comparing(Vehicle::getId));
     }
 
     public void sortByModel() {
-        Collections.sort(fleet, Comparator.comparing(Vehicle::getModel));
+        sortFleet(Comparator.comparing(Vehicle::getModel));
     }
 
     public void sortByMaxSpeed() {
-        Collections.sort(fleet, Comparator.comparingDouble(Vehicle::getMaxSpeed).reversed());
+        sortFleet(Comparator.comparingDouble(Vehicle::getMaxSpeed).reversed());
     }
 
     public void sortByType() {
-        Collections.sort(fleet, Comparator.comparing(v -> v.getClass().getSimpleName()));
+        sortFleet(Comparator.comparing(v -> v.getClass().getSimpleName()));
     }
 
     public void sortByFuelLevel() {
-        Collections.sort(fleet, (v1, v2) -> {
+        sortFleet((v1, v2) -> {
             double f1 = (v1 instanceof FuelConsumable) ? ((FuelConsumable) v1).getFuelLevel() : 0.0;
             double f2 = (v2 instanceof FuelConsumable) ? ((FuelConsumable) v2).getFuelLevel() : 0.0;
             return Double.compare(f2, f1);
@@ -436,10 +538,65 @@ public class FleetManager {
     }
 
     public void sortByMileage() {
-        Collections.sort(fleet, Comparator.comparingDouble(Vehicle::getCurrentMileage).reversed());
+        sortFleet(Comparator.comparingDouble(Vehicle::getCurrentMileage).reversed());
+    }
+
+    private void sortFleet(Comparator<? super Vehicle> comparator) {
+        registry.sort(comparator);
+        index.fleetReordered(registry);
+        statistics.fleetReordered();
+    }
+
+    // The fleet in the given order without reordering it. Each ordering is built on first use
+    // and maintained from then on, so later calls cost O(n) and pages O(log n + limit).
+    public List<Vehicle> getSorted(SortKey key) {
+        return index.sorted(key, 0, Integer.MAX_VALUE);
+    }
+
+    public List<Vehicle> getSorted(SortKey key, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative.");
+        }
+        return index.sorted(key, offset, limit);
+    }
+
+    private void forEachVehicle(int count, IntConsumer action) {
+        if (count <= parallelThreshold) {
+            for (int i = 0; i < count; i++) {
+                action.accept(i);
+            }
+        } else {
+            pool.invoke(new RangeTask(action, 0, count, parallelThreshold));
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        RangeTask(IntConsumer action, int from, int to, int threshold) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(action, from, mid, threshold), new RangeTask(action, mid, to, threshold));
+            } else {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            }
+        }
     }
 
     public List<Vehicle> getFleet() { 
-        return new ArrayList<>(fleet);
+        return registry.snapshot();
     }
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+package fleet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import vehicle.Vehicle;
+
+// The vehicles of a FleetManager: an id-keyed concurrent map for lookups and uniqueness, and
+// the fleet order spread over striped segments. A vehicle lives in the segment picked by its
+// id, so adds and removes of different vehicles rarely share a lock. Readers never lock: each
+// segment publishes an array table that is only ever appended to or nulled out in place, and
+// replaced by a fresh copy when it grows, is compacted or is reordered.
+//
+// Fleet order is a global order key per vehicle, taken under the segment lock so that each
+// segment's table is sorted by it; iteration merges the segments. Iteration is weakly
+// consistent: a concurrent add or remove may or may not be seen, but every vehicle that stays
+// in the fleet is seen exactly once.
+//
+// The added callback also gets the vehicle's order key. The added and removed callbacks run under the vehicle's segment lock, so they cannot cross
+// for the same id.
+final class FleetRegistry {
+    private static final int SEGMENTS = 32;
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLong nextOrder = new AtomicLong();
+    private final ObjLongConsumer<Vehicle> added;
+    private final Consumer<Vehicle> removed;
+
+    FleetRegistry(ObjLongConsumer<Vehicle> added, Consumer<Vehicle> removed) {
+        this.added = added;
+        this.removed = removed;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    // False if a vehicle with the same id is already registered.
+    boolean add(Vehicle v) {
+        Entry entry = new Entry(v, segmentOf(v.getId()));
+        Segment segment = segments[entry.segment];
+        // Registered under the lock, so that clear() cannot empty byId between the two steps.
+        segment.lock.lock();
+        try {
+            if (byId.putIfAbsent(v.getId(), entry) != null) return false;
+            // Before the vehicle becomes visible, so that nothing can change it unobserved.
+            long order = nextOrder.getAndIncrement();
+            added.accept(v, order);
+            segment.append(entry, order);
+        } finally {
+            segment.lock.unlock();
+        }
+        return true;
+    }
+
+    Vehicle remove(String id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) return null;
+        Segment segment = segments[entry.segment];
+        segment.lock.lock();
+        try {
+            if (entry.position >= 0) {
+                segment.delete(entry);
+                removed.accept(entry.vehicle);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return entry.vehicle;
+    }
+
+    Vehicle get(String id) {
+        Entry entry = byId.get(id);
+        return entry == null ? null : entry.vehicle;
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    // Drops every vehicle without running the removed callback.
+    void clear() {
+        lockAll();
+        try {
+            for (Segment segment : segments) {
+                // A remove() that already took its entry out of byId then finds it gone.
+                for (Entry entry : segment.entries()) {
+                    entry.position = -1;
+                }
+                segment.table = new Table(0);
+                segment.live = 0;
+            }
+            byId.clear();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Stable sort of the fleet order, like Collections.sort on a list.
+    void sort(Comparator<? super Vehicle> comparator) {
+        lockAll();
+        try {
+            List<Entry> entries = new ArrayList<>(size());
+            forEachInOrder(entries::add);
+            entries.sort((a, b) -> comparator.compare(a.vehicle, b.vehicle));
+            int[] counts = new int[SEGMENTS];
+            for (Entry entry : entries) {
+                counts[entry.segment]++;
+            }
+            Table[] tables = new Table[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                tables[i] = new Table(Math.max(counts[i], 4));
+            }
+            long order = nextOrder.getAndAdd(entries.size());
+            for (Entry entry : entries) {
+                Table table = tables[entry.segment];
+                entry.position = table.end;
+                table.entries[table.end] = entry;
+                entry.order = order;
+                table.orders[table.end] = order++;
+                table.end++;
+            }
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i].table = tables[i];
+                segments[i].live = tables[i].end;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // The fleet in order.
+    List<Vehicle> snapshot() {
+        List<Vehicle> result = new ArrayList<>(size());
+        forEachInOrder(e -> result.add(e.vehicle));
+        return result;
+    }
+
+    // The first vehicle in fleet order that matches, or null.
+    Vehicle findFirst(Predicate<Vehicle> predicate) {
+        Vehicle[] found = new Vehicle[1];
+        forEachInOrder(e -> {
+            if (!predicate.test(e.vehicle)) return true;
+            found[0] = e.vehicle;
+            return false;
+        });
+        return found[0];
+    }
+
+    // Every vehicle with its order key, in fleet order.
+    void forEachWithOrder(ObjLongConsumer<Vehicle> visitor) {
+        forEachInOrder(e -> {
+            visitor.accept(e.vehicle, e.order);
+            return true;
+        });
+    }
+
+    // Visits entries in fleet order until the visitor returns false.
+    private void forEachInOrder(Predicate<Entry> visitor) {
+        Table[] tables = new Table[SEGMENTS];
+        int[] ends = new int[SEGMENTS];
+        int[] cursors = new int[SEGMENTS];
+        // Binary heap of segment numbers, ordered by the order key at each segment's cursor.
+        int[] heap = new int[SEGMENTS];
+        int heapSize = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            tables[i] = segments[i].table;
+            ends[i] = tables[i].end;
+            if (skipHoles(tables[i], cursors, i, ends[i])) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, tables, cursors);
+            }
+        }
+        while (heapSize > 0) {
+            int s = heap[0];
+            Entry entry = tables[s].entries[cursors[s]];
+            if (entry != null && !visitor.test(entry)) return;
+            cursors[s]++;
+            if (!skipHoles(tables[s], cursors, s, ends[s])) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, tables, cursors);
+        }
+    }
+
+    private static boolean skipHoles(Table table, int[] cursors, int s, int end) {
+        while (cursors[s] < end && table.entries[cursors[s]] == null) {
+            cursors[s]++;
+        }
+        return cursors[s] < end;
+    }
+
+    private static long keyOf(int s, Table[] tables, int[] cursors) {
+        return tables[s].orders[cursors[s]];
+    }
+
+    private static void siftUp(int[] heap, int i, Table[] tables, int[] cursors) {
+        int s = heap[i];
+        long key = keyOf(s, tables, cursors);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keyOf(heap[parent], tables, cursors) <= key) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = s;
+    }
+
+    private static void siftDown(int[] heap, int size, Table[] tables, int[] cursors) {
+        if (size == 0) return;
+        int i = 0;
+        int s = heap[0];
+        long key = keyOf(s, tables, cursors);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && keyOf(heap[child + 1], tables, cursors) < keyOf(heap[child], tables, cursors)) {
+                child++;
+            }
+            if (key <= keyOf(heap[child], tables, cursors)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = s;
+    }
+
+    private static int segmentOf(String id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (SEGMENTS - 1);
+    }
+
+    private void lockAll() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = SEGMENTS - 1; i >= 0; i--) {
+            segments[i].lock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final Vehicle vehicle;
+        private final int segment;
+        // Guarded by the segment lock.
+        private int position = -1;
+        // The order key, also readable without the lock.
+        private volatile long order;
+
+        Entry(Vehicle vehicle, int segment) {
+            this.vehicle = vehicle;
+            this.segment = segment;
+        }
+    }
+
+    // Slots below end are written before end is published; a removed vehicle leaves a null.
+    private static final class Table {
+        private final Entry[] entries;
+        private final long[] orders;
+        private volatile int end;
+
+        Table(int capacity) {
+            entries = new Entry[capacity];
+            orders = new long[capacity];
+        }
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Table table = new Table(4);
+        private int live;
+
+        void append(Entry entry, long order) {
+            Table current = table;
+            int end = current.end;
+            if (end == current.entries.length) {
+                current = copy(current, Math.max(4, live * 2));
+                end = current.end;
+                table = current;
+            }
+            entry.position = end;
+            entry.order = order;
+            current.entries[end] = entry;
+            current.orders[end] = order;
+            current.end = end + 1;
+            live++;
+        }
+
+        void delete(Entry entry) {
+            Table current = table;
+            current.entries[entry.position] = null;
+            entry.position = -1;
+            live--;
+            if (current.end >= 16 && current.end - live > live) {
+                table = copy(current, Math.max(4, live * 2));
+            }
+        }
+
+        List<Entry> entries() {
+            Table current = table;
+            List<Entry> result = new ArrayList<>(live);
+            for (int i = 0; i < current.end; i++) {
+                if (current.entries[i] != null) result.add(current.entries[i]);
+            }
+            return result;
+        }
+
+        // Compacted copy with room for at least capacity vehicles.
+        private static Table copy(Table from, int capacity) {
+            Table to = new Table(Math.max(capacity, 4));
+            int n = 0;
+            for (int i = 0; i < from.end; i++) {
+                Entry entry = from.entries[i];
+                if (entry == null) continue;
+                entry.position = n;
+                to.entries[n] = entry;
+                to.orders[n] = from.orders[i];
+                n++;
+            }
+            to.end = n;
+            return to;
+        }
+    }
+}
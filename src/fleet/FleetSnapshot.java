@@ -0,0 +1,331 @@
+package fleet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.*;
+import vehicle.*;
+import exception.*;
+import interfaces.CargoCarrier;
+import interfaces.FuelConsumable;
+import interfaces.Maintainable;
+import interfaces.PassengerCarrier;
+
+// Versioned binary counterpart of the fleet CSV. A 16-byte header (magic, version, vehicle
+// count) is followed by one variable-length record per vehicle:
+//
+//   byte    VehicleType code
+//   byte    flags (maintenance, new model, sail, and which optional values follow)
+//   byte    number mask: which numbers below are stored in hundredths
+//   varint  id length, UTF-8 id bytes
+//   varint  model code; for a model's first use also varint length and UTF-8 bytes
+//   number  maxSpeed
+//   varint wheels (land) or number maxAltitude (air); ships use the sail flag
+//   varint  passengers, number cargo, number mileage, number fuel, each only if non-zero
+//
+// A number is a zig-zag varint of hundredths when that converts back to exactly the same
+// double, which holds for everything read from the two-decimal CSV, and otherwise the raw
+// big-endian IEEE bits. Either way a save/load round trip is exact.
+public final class FleetSnapshot {
+    public static final int MAGIC = 0x464C5453; // "FLTS"
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int HEADER_BYTES = 16;
+    // Largest record apart from the id and model bytes: three leading bytes, four varints
+    // and five numbers.
+    private static final int MAX_FIXED_RECORD_BYTES = 3 + 4 * 5 + 5 * 10;
+    private static final long NOT_HUNDREDTHS = Long.MIN_VALUE;
+
+    private static final int MAINTENANCE = 1;
+    private static final int NEW_MODEL = 1 << 1;
+    private static final int SAIL = 1 << 2;
+    private static final int HAS_PASSENGERS = 1 << 3;
+    private static final int HAS_CARGO = 1 << 4;
+    private static final int HAS_MILEAGE = 1 << 5;
+    private static final int HAS_FUEL = 1 << 6;
+
+    private static final int SPEED_FIELD = 0;
+    private static final int ALTITUDE_FIELD = 1;
+    private static final int CARGO_FIELD = 2;
+    private static final int MILEAGE_FIELD = 3;
+    private static final int FUEL_FIELD = 4;
+
+    private FleetSnapshot() {
+    }
+
+    public static void write(Collection<Vehicle> vehicles, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(vehicles, channel);
+        }
+    }
+
+    public static void write(Collection<Vehicle> vehicles, WritableByteChannel channel) throws IOException {
+        // Small batches, such as vehicles sent over a socket, do not need the full buffer.
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_BYTES, HEADER_BYTES + 64L * vehicles.size()));
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(vehicles.size());
+
+        Map<String, Integer> modelCodes = new HashMap<>();
+        for (Vehicle v : vehicles) {
+            VehicleType type = VehicleType.of(v);
+            byte[] id = v.getId().getBytes(StandardCharsets.UTF_8);
+            Integer modelCode = modelCodes.get(v.getModel());
+            byte[] model = null;
+            if (modelCode == null) {
+                modelCode = modelCodes.size();
+                modelCodes.put(v.getModel(), modelCode);
+                model = v.getModel().getBytes(StandardCharsets.UTF_8);
+            }
+
+            int passengers = v instanceof PassengerCarrier pc ? pc.getCurrentPassengers() : 0;
+            double cargo = v instanceof CargoCarrier cc ? cc.getCurrentCargo() : 0.0;
+            double mileage = v.getCurrentMileage();
+            double fuel = v instanceof FuelConsumable fc ? fc.getFuelLevel() : 0.0;
+            double altitude = v instanceof AirVehicle av ? av.getMaxAltitude() : 0.0;
+            long[] hundredths = {
+                hundredths(v.getMaxSpeed()), hundredths(altitude), hundredths(cargo), hundredths(mileage), hundredths(fuel)
+            };
+            int numberMask = 0;
+            for (int f = 0; f < hundredths.length; f++) {
+                if (hundredths[f] != NOT_HUNDREDTHS) numberMask |= 1 << f;
+            }
+            int flags = 0;
+            if (v instanceof Maintainable m && m.needsMaintenance()) flags |= MAINTENANCE;
+            if (model != null) flags |= NEW_MODEL;
+            if (v instanceof WaterVehicle wv && wv.hasSail()) flags |= SAIL;
+            if (passengers != 0) flags |= HAS_PASSENGERS;
+            if (cargo != 0.0) flags |= HAS_CARGO;
+            if (mileage != 0.0) flags |= HAS_MILEAGE;
+            if (fuel != 0.0) flags |= HAS_FUEL;
+
+            int needed = MAX_FIXED_RECORD_BYTES + 5 + id.length + (model != null ? 5 + model.length : 0);
+            if (buffer.remaining() < needed) {
+                flush(channel, buffer);
+                if (buffer.capacity() < needed) {
+                    buffer = ByteBuffer.allocateDirect(needed);
+                }
+            }
+
+            buffer.put(type.getCode()).put((byte) flags).put((byte) numberMask);
+            putVarint(buffer, id.length);
+            buffer.put(id);
+            putVarint(buffer, modelCode);
+            if (model != null) {
+                putVarint(buffer, model.length);
+                buffer.put(model);
+            }
+            putNumber(buffer, v.getMaxSpeed(), hundredths[SPEED_FIELD]);
+            if (v instanceof LandVehicle lv) {
+                putVarint(buffer, lv.getNumWheels());
+            } else if (v instanceof AirVehicle) {
+                putNumber(buffer, altitude, hundredths[ALTITUDE_FIELD]);
+            }
+            if (passengers != 0) putVarint(buffer, passengers);
+            if (cargo != 0.0) putNumber(buffer, cargo, hundredths[CARGO_FIELD]);
+            if (mileage != 0.0) putNumber(buffer, mileage, hundredths[MILEAGE_FIELD]);
+            if (fuel != 0.0) putNumber(buffer, fuel, hundredths[FUEL_FIELD]);
+        }
+        flush(channel, buffer);
+    }
+
+    // Feeds digest exactly the bytes write() would produce, so equal digests mean equal snapshots.
+    public static void digest(Collection<Vehicle> vehicles, MessageDigest digest) {
+        try {
+            write(vehicles, new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    int n = src.remaining();
+                    digest.update(src);
+                    return n;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<Vehicle> read(Path file) throws IOException, InvalidOperationException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(new Reader(channel, BUFFER_BYTES), file.toString());
+        }
+    }
+
+    // May read past the end of the snapshot into its buffer, so the channel should end where
+    // the snapshot does.
+    public static List<Vehicle> read(ReadableByteChannel channel) throws IOException, InvalidOperationException {
+        return read(new Reader(channel, 4096), "channel");
+    }
+
+    private static List<Vehicle> read(Reader in, String source) throws IOException, InvalidOperationException {
+        in.require(HEADER_BYTES);
+        if (in.buffer.getInt() != MAGIC) {
+            throw new IOException(source + " is not a fleet snapshot.");
+        }
+        int version = in.buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported fleet snapshot version " + version + " in " + source + ".");
+        }
+        long count = in.buffer.getLong();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt fleet snapshot header in " + source + ".");
+        }
+
+        List<Vehicle> vehicles = new ArrayList<>((int) count);
+        List<String> models = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            in.require(3);
+            VehicleType type = VehicleType.fromCode(in.buffer.get());
+            int flags = in.buffer.get();
+            int numberMask = in.buffer.get();
+            String id = in.readString();
+            int modelCode = in.readVarint();
+            if ((flags & NEW_MODEL) != 0) {
+                if (modelCode != models.size()) {
+                    throw new IOException("Corrupt fleet snapshot: unexpected model code " + modelCode + ".");
+                }
+                models.add(in.readString());
+            } else if (modelCode >= models.size()) {
+                throw new IOException("Corrupt fleet snapshot: unknown model code " + modelCode + ".");
+            }
+            double maxSpeed = in.readNumber(numberMask, SPEED_FIELD);
+            double extra = switch (type) {
+                case CAR, TRUCK, BUS -> in.readVarint();
+                case AIRPLANE -> in.readNumber(numberMask, ALTITUDE_FIELD);
+                case CARGO_SHIP -> (flags & SAIL) != 0 ? 1.0 : 0.0;
+            };
+            int passengers = (flags & HAS_PASSENGERS) != 0 ? in.readVarint() : 0;
+            double cargo = (flags & HAS_CARGO) != 0 ? in.readNumber(numberMask, CARGO_FIELD) : 0.0;
+            double mileage = (flags & HAS_MILEAGE) != 0 ? in.readNumber(numberMask, MILEAGE_FIELD) : 0.0;
+            double fuel = (flags & HAS_FUEL) != 0 ? in.readNumber(numberMask, FUEL_FIELD) : 0.0;
+
+            Vehicle v = type.create(id, models.get(modelCode), maxSpeed, extra);
+            FleetManager.restoreState(v, passengers, cargo, mileage, fuel, (flags & MAINTENANCE) != 0, System.out::println);
+            vehicles.add(v);
+        }
+        return vehicles;
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long hundredths(double value) {
+        double scaled = value * 100.0;
+        if (!(Math.abs(scaled) < 1e15)) return NOT_HUNDREDTHS;
+        long rounded = Math.round(scaled);
+        return Double.compare(rounded / 100.0, value) == 0 ? rounded : NOT_HUNDREDTHS;
+    }
+
+    private static void putNumber(ByteBuffer buffer, double value, long hundredths) {
+        if (hundredths == NOT_HUNDREDTHS) {
+            buffer.putDouble(value);
+            return;
+        }
+        long zigzag = (hundredths << 1) ^ (hundredths >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static final class Reader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer;
+        private byte[] scratch = new byte[64];
+
+        Reader(ReadableByteChannel channel, int capacity) {
+            this.channel = channel;
+            buffer = ByteBuffer.allocateDirect(capacity).flip();
+        }
+
+        void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            if (buffer.capacity() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(bytes);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of fleet snapshot.");
+                }
+            }
+            buffer.flip();
+        }
+
+        double readDouble() throws IOException {
+            require(8);
+            return buffer.getDouble();
+        }
+
+        double readNumber(int numberMask, int field) throws IOException {
+            if ((numberMask & (1 << field)) == 0) {
+                return readDouble();
+            }
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return ((zigzag >>> 1) ^ -(zigzag & 1)) / 100.0;
+                }
+            }
+            throw new IOException("Corrupt fleet snapshot: number too long.");
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IOException("Corrupt fleet snapshot: varint too long.");
+        }
+
+        String readString() throws IOException {
+            int length = readVarint();
+            if (length < 0) throw new IOException("Corrupt fleet snapshot: negative string length.");
+            require(length);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
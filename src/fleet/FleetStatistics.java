@@ -0,0 +1,242 @@
+package fleet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import vehicle.Vehicle;
+import interfaces.FuelConsumable;
+import interfaces.Maintainable;
+import interfaces.VehicleListener;
+
+// Aggregates behind FleetManager.generateReport, kept up to date as vehicles are added,
+// removed and changed so that a report does not rescan the fleet. Each tracked vehicle gets
+// its own Entry as listener, which remembers the mileage, efficiency and maintenance state last
+// counted for it, so that a change replaces exactly what the vehicle contributed before. Changes may come from simulation threads without a lock;
+// membership changes and the report getters synchronize on the statistics object. A move
+// already under way while its vehicle is removed can still be counted once.
+//
+// Efficiencies take only a handful of distinct values, so they are counted per value rather
+// than summed: repeated add/subtract of values such as 7.2 would drift and flip the rounded
+// average in the report. Mileage is kept as an integer count of MILEAGE_UNITS per km for the
+// same reason: a running double total of move deltas drifts, while integer additions and
+// subtractions cancel exactly. Scaling by a power of two is exact, so the only rounding is the
+// sub-unit remainder of each vehicle's mileage.
+class FleetStatistics {
+    private static final int MILEAGE_UNIT_BITS = 20;
+
+    private final FleetRegistry registry;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> modelCounts = new HashMap<>();
+    private final Map<String, Integer> typeCounts = new HashMap<>();
+    private final TreeMap<Double, Integer> speedCounts = new TreeMap<>();
+    private final Map<Double, LongAdder> efficiencyCounts = new ConcurrentHashMap<>();
+    private final LongAdder mileageUnits = new LongAdder();
+    private final LongAdder maintenanceCount = new LongAdder();
+    private int fuelConsumableCount;
+
+    // Like Collections.max/min, the report names the first vehicle in fleet order with the
+    // extreme speed. null means it has to be looked up again.
+    private Vehicle fastest;
+    private Vehicle slowest;
+
+    FleetStatistics(FleetRegistry registry) {
+        this.registry = registry;
+    }
+
+    synchronized void track(Vehicle v) {
+        Entry entry = new Entry();
+        entries.put(v.getId(), entry);
+        modelCounts.merge(v.getModel(), 1, Integer::sum);
+        typeCounts.merge(v.getClass().getSimpleName(), 1, Integer::sum);
+        speedCounts.merge(v.getMaxSpeed(), 1, Integer::sum);
+        if (v instanceof FuelConsumable) fuelConsumableCount++;
+        if (fastest != null && Double.compare(v.getMaxSpeed(), fastest.getMaxSpeed()) > 0) fastest = v;
+        if (slowest != null && Double.compare(v.getMaxSpeed(), slowest.getMaxSpeed()) < 0) slowest = v;
+        entry.attach(v);
+        v.addListener(entry);
+    }
+
+    synchronized void untrack(Vehicle v) {
+        Entry entry = entries.remove(v.getId());
+        if (entry == null) return;
+        v.removeListener(entry);
+        entry.detach(v);
+        decrement(modelCounts, v.getModel());
+        decrement(typeCounts, v.getClass().getSimpleName());
+        decrement(speedCounts, v.getMaxSpeed());
+        if (v instanceof FuelConsumable) fuelConsumableCount--;
+        if (v == fastest) fastest = null;
+        if (v == slowest) slowest = null;
+    }
+
+    synchronized void clear() {
+        for (Vehicle v : registry.snapshot()) {
+            Entry entry = entries.get(v.getId());
+            if (entry != null) {
+                v.removeListener(entry);
+                entry.detach(v);
+            }
+        }
+        entries.clear();
+        modelCounts.clear();
+        typeCounts.clear();
+        speedCounts.clear();
+        efficiencyCounts.clear();
+        mileageUnits.reset();
+        maintenanceCount.reset();
+        fuelConsumableCount = 0;
+        fastest = null;
+        slowest = null;
+    }
+
+    // A reorder only matters when several vehicles share an extreme speed.
+    synchronized void fleetReordered() {
+        if (speedCounts.isEmpty()) return;
+        if (speedCounts.lastEntry().getValue() > 1) fastest = null;
+        if (speedCounts.firstEntry().getValue() > 1) slowest = null;
+    }
+
+    synchronized int getDistinctModels() {
+        return modelCounts.size();
+    }
+
+    // In VehicleType.REPORT_ORDER, then any other vehicle classes by name.
+    synchronized Map<String, Integer> getCountByType() {
+        Map<String, Integer> countByType = new LinkedHashMap<>();
+        for (VehicleType type : VehicleType.REPORT_ORDER) {
+            Integer count = typeCounts.get(type.getTypeName());
+            if (count != null) countByType.put(type.getTypeName(), count);
+        }
+        new TreeMap<>(typeCounts).forEach(countByType::putIfAbsent);
+        return countByType;
+    }
+
+    synchronized Vehicle getFastest() {
+        if (fastest == null && !speedCounts.isEmpty()) {
+            fastest = firstWithSpeed(speedCounts.lastKey());
+            if (fastest == null) return extreme(Comparator.comparingDouble(Vehicle::getMaxSpeed));
+        }
+        return fastest;
+    }
+
+    synchronized Vehicle getSlowest() {
+        if (slowest == null && !speedCounts.isEmpty()) {
+            slowest = firstWithSpeed(speedCounts.firstKey());
+            if (slowest == null) return extreme(Comparator.comparingDouble(Vehicle::getMaxSpeed).reversed());
+        }
+        return slowest;
+    }
+
+    synchronized double getAverageEfficiency() {
+        if (fuelConsumableCount == 0) return 0.0;
+        double totalEfficiency = 0.0;
+        for (Map.Entry<Double, LongAdder> entry : efficiencyCounts.entrySet()) {
+            totalEfficiency += entry.getKey() * entry.getValue().sum();
+        }
+        return totalEfficiency / fuelConsumableCount;
+    }
+
+    double getTotalMileage() {
+        return Math.scalb((double) mileageUnits.sum(), -MILEAGE_UNIT_BITS);
+    }
+
+    int getVehiclesNeedingMaintenance() {
+        return (int) maintenanceCount.sum();
+    }
+
+    private Vehicle firstWithSpeed(double speed) {
+        return registry.findFirst(v -> Double.compare(v.getMaxSpeed(), speed) == 0);
+    }
+
+    // While a vehicle is being added or removed on another thread, the registry and the counts
+    // can briefly disagree; then the answer comes from the registry alone and is not cached.
+    private Vehicle extreme(Comparator<Vehicle> comparator) {
+        List<Vehicle> vehicles = registry.snapshot();
+        return vehicles.isEmpty() ? null : Collections.max(vehicles, comparator);
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static long mileageUnitsOf(Vehicle vehicle) {
+        return Math.round(Math.scalb(vehicle.getCurrentMileage(), MILEAGE_UNIT_BITS));
+    }
+
+    private final class Entry implements VehicleListener {
+        private boolean attached;
+        private long mileage;
+        private double efficiency;
+        private boolean needsMaintenance;
+
+        synchronized void attach(Vehicle vehicle) {
+            attached = true;
+            mileage = mileageUnitsOf(vehicle);
+            efficiency = efficiencyOf(vehicle);
+            needsMaintenance = needsMaintenance(vehicle);
+            mileageUnits.add(mileage);
+            countEfficiency(vehicle, efficiency, 1);
+            if (needsMaintenance) maintenanceCount.increment();
+        }
+
+        synchronized void detach(Vehicle vehicle) {
+            if (!attached) return;
+            attached = false;
+            mileageUnits.add(-mileage);
+            countEfficiency(vehicle, efficiency, -1);
+            if (needsMaintenance) maintenanceCount.decrement();
+        }
+
+        // The delta is not added up: the vehicle's mileage is read again, so that however the
+        // notifications of concurrent movers interleave, the last one leaves the exact value.
+        @Override
+        public synchronized void mileageChanged(Vehicle vehicle, double delta) {
+            if (attached) recountMileage(vehicle);
+        }
+
+        @Override
+        public void vehicleChanged(Vehicle vehicle) {
+            refresh(vehicle);
+        }
+
+        synchronized void refresh(Vehicle vehicle) {
+            if (!attached) return;
+            recountMileage(vehicle);
+            double newEfficiency = efficiencyOf(vehicle);
+            if (Double.compare(newEfficiency, efficiency) != 0) {
+                countEfficiency(vehicle, efficiency, -1);
+                countEfficiency(vehicle, newEfficiency, 1);
+                efficiency = newEfficiency;
+            }
+            boolean newNeedsMaintenance = needsMaintenance(vehicle);
+            if (newNeedsMaintenance != needsMaintenance) {
+                if (newNeedsMaintenance) {
+                    maintenanceCount.increment();
+                } else {
+                    maintenanceCount.decrement();
+                }
+                needsMaintenance = newNeedsMaintenance;
+            }
+        }
+
+        private void recountMileage(Vehicle vehicle) {
+            long now = mileageUnitsOf(vehicle);
+            mileageUnits.add(now - mileage);
+            mileage = now;
+        }
+
+        private void countEfficiency(Vehicle vehicle, double value, int delta) {
+            if (vehicle instanceof FuelConsumable) {
+                efficiencyCounts.computeIfAbsent(value, k -> new LongAdder()).add(delta);
+            }
+        }
+
+        private static double efficiencyOf(Vehicle v) {
+            return v instanceof FuelConsumable ? v.calculateFuelEfficiency() : 0.0;
+        }
+
+        private static boolean needsMaintenance(Vehicle v) {
+            return v instanceof Maintainable m && m.needsMaintenance();
+        }
+    }
+}
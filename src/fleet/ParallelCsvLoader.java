@@ -0,0 +1,486 @@
+package fleet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import vehicle.*;
+import exception.*;
+import interfaces.CargoCarrier;
+import interfaces.PassengerCarrier;
+
+// Loads the CSV written by FleetManager.saveToFile for fleets too large for a line-by-line
+// reader. The file is cut into line-aligned chunks that are memory-mapped and parsed on a
+// fork-join pool directly from the mapped bytes; only the id and model of each row become
+// Strings. Chunks are merged in file order, so the result, the warnings and their line
+// numbers are the same as with loadFromFile, except that a repeated id keeps its first row.
+public class ParallelCsvLoader {
+    public static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+    private static final int FIELD_COUNT = 11;
+    private static final int MAX_FAST_DIGITS = CsvTokenizer.MAX_FAST_DIGITS;
+    private static final double[] POW10 = CsvTokenizer.POW10;
+    private static final VehicleType[] TYPES = VehicleType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+
+    static {
+        for (VehicleType type : TYPES) {
+            TYPE_NAMES[type.getCode()] = type.getTypeName().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    public ParallelCsvLoader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public ParallelCsvLoader(ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    // Returns the vehicles of the file in file order. Warnings are delivered in file order
+    // on the calling thread once all chunks have been parsed.
+    public List<Vehicle> load(Path file, Consumer<String> warnings) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            pool.invoke(new ParseTask(channel, bounds, chunks, 0, chunks.length));
+
+            int total = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.failure != null) throw chunk.failure;
+                total += chunk.vehicles.size();
+            }
+            List<Vehicle> vehicles = new ArrayList<>(total);
+            Set<String> ids = new HashSet<>(Math.max(16, (int) (total / 0.75f) + 1));
+            long firstLine = 0;
+            for (Chunk chunk : chunks) {
+                int next = 0;
+                for (int i = 0; i < chunk.vehicles.size(); i++) {
+                    Vehicle v = chunk.vehicles.get(i);
+                    int line = chunk.lines[i];
+                    while (next < chunk.problems.size() && chunk.problems.get(next).line <= line) {
+                        warnings.accept(chunk.problems.get(next++).format(firstLine));
+                    }
+                    if (ids.add(v.getId())) {
+                        vehicles.add(v);
+                    } else {
+                        warnings.accept("Warning: Skipping line " + (firstLine + line) + " with duplicate ID " + v.getId());
+                    }
+                }
+                while (next < chunk.problems.size()) {
+                    warnings.accept(chunk.problems.get(next++).format(firstLine));
+                }
+                firstLine += chunk.lineCount;
+            }
+            return vehicles;
+        }
+    }
+
+    // Chunk i covers [bounds[i], bounds[i + 1]); every bound but the last follows a '\n'.
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long next = chunkBytes;
+        while (next < size) {
+            long lineStart = nextLineStart(channel, next, probe);
+            if (lineStart >= size) break;
+            bounds.add(lineStart);
+            next = lineStart + chunkBytes;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long position = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+    }
+
+    private static final class ParseTask extends RecursiveAction {
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+
+        ParseTask(FileChannel channel, long[] bounds, Chunk[] chunks, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseTask(channel, bounds, chunks, from, mid),
+                          new ParseTask(channel, bounds, chunks, mid, to));
+                return;
+            }
+            Chunk chunk = new Chunk();
+            chunks[from] = chunk;
+            try {
+                long start = bounds[from];
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, bounds[from + 1] - start);
+                new ChunkParser(buffer, chunk).parse(from == 0);
+            } catch (IOException e) {
+                chunk.failure = e;
+            }
+        }
+    }
+
+    private static final class Chunk {
+        final List<Vehicle> vehicles = new ArrayList<>();
+        final List<Problem> problems = new ArrayList<>();
+        int[] lines = new int[64];
+        int lineCount;
+        IOException failure;
+
+        void add(Vehicle v, int line) {
+            if (vehicles.size() == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+            lines[vehicles.size()] = line;
+            vehicles.add(v);
+        }
+    }
+
+    // A warning whose line number is only known relative to its chunk until the merge.
+    private record Problem(int line, String prefix, String suffix, boolean numbered) {
+        String format(long firstLine) {
+            return numbered ? prefix + (firstLine + line) + suffix : prefix;
+        }
+    }
+
+    private static final class ChunkParser {
+        private final ByteBuffer buf;
+        private final Chunk chunk;
+        private int[] fieldStart = new int[FIELD_COUNT + 1];
+        private int[] fieldEnd = new int[FIELD_COUNT + 1];
+        private boolean[] fieldQuoted = new boolean[FIELD_COUNT + 1];
+        private int fields;
+        private byte[] scratch = new byte[256];
+        private final byte[][] modelKeys = new byte[256][];
+        private final String[] modelValues = new String[256];
+        private int line;
+
+        ChunkParser(ByteBuffer buf, Chunk chunk) {
+            this.buf = buf;
+            this.chunk = chunk;
+        }
+
+        void parse(boolean skipHeader) {
+            int limit = buf.limit();
+            int pos = 0;
+            while (pos < limit) {
+                int eol = pos;
+                while (eol < limit && buf.get(eol) != '\n') eol++;
+                int end = eol > pos && buf.get(eol - 1) == '\r' ? eol - 1 : eol;
+                line++;
+                if (!(skipHeader && line == 1) && !isBlank(pos, end)) {
+                    parseLine(pos, end);
+                }
+                pos = eol + 1;
+            }
+            chunk.lineCount = line;
+        }
+
+        private void parseLine(int start, int end) {
+            split(start, end);
+            if (fields < FIELD_COUNT) {
+                chunk.problems.add(new Problem(line, "Warning: Skipping line ",
+                        " due to insufficient fields: " + decode(start, end), true));
+                return;
+            }
+            try {
+                String id = text(1, false);
+                String model = model(2);
+                double mileage = parseDouble(8);
+                double fuelLevel = parseDouble(9);
+                boolean maintenanceNeeded = parseBoolean(10);
+                Vehicle v = create(type(0), id, model);
+
+                int passengers = -1;
+                if (v instanceof PassengerCarrier && !isEmpty(6)) {
+                    try {
+                        passengers = parseInt(6);
+                    } catch (NumberFormatException e) {
+                        warn("Warning: Could not restore passengers for " + id + ": " + e.getMessage());
+                    }
+                }
+                double cargo = Double.NaN;
+                if (v instanceof CargoCarrier && !isEmpty(7)) {
+                    try {
+                        cargo = parseDouble(7);
+                    } catch (NumberFormatException e) {
+                        warn("Warning: Could not restore cargo for " + id + ": " + e.getMessage());
+                    }
+                }
+                FleetManager.restoreState(v, passengers, cargo, mileage, fuelLevel, maintenanceNeeded, this::warn);
+                chunk.add(v, line);
+            } catch (Exception e) {
+                chunk.problems.add(new Problem(line, "Skipping invalid line ", ": " + e.getMessage(), true));
+            }
+        }
+
+        private Vehicle create(VehicleType type, String id, String model) throws InvalidOperationException {
+            double maxSpeed;
+            try {
+                maxSpeed = parseDouble(3);
+            } catch (NumberFormatException e) {
+                throw new InvalidOperationException("Invalid maxSpeed in CSV data for " + type.getTypeName() + " " + id + ": " + text(3, false));
+            }
+            try {
+                double extra = switch (type) {
+                    case CAR, TRUCK, BUS -> parseInt(4);
+                    case AIRPLANE -> parseDouble(4);
+                    case CARGO_SHIP -> parseBoolean(4) ? 1.0 : 0.0;
+                };
+                return type.create(id, model, maxSpeed, extra);
+            } catch (NumberFormatException e) {
+                throw new InvalidOperationException("Number format error creating " + type.getTypeName() + " " + id + ": " + e.getMessage());
+            }
+        }
+
+        private void warn(String message) {
+            chunk.problems.add(new Problem(line, message, null, false));
+        }
+
+        // Same rules as CsvTokenizer: a doubled quote is a literal quote and commas inside
+        // quotes do not split.
+        private void split(int start, int end) {
+            fields = 0;
+            int from = start;
+            boolean inQuotes = false;
+            boolean quoted = false;
+            for (int i = start; i < end; i++) {
+                byte b = buf.get(i);
+                if (b == '"') {
+                    quoted = true;
+                    if (i + 1 < end && buf.get(i + 1) == '"') {
+                        i++;
+                    } else {
+                        inQuotes = !inQuotes;
+                    }
+                } else if (b == ',' && !inQuotes) {
+                    addField(from, i, quoted);
+                    from = i + 1;
+                    quoted = false;
+                }
+            }
+            addField(from, end, quoted);
+        }
+
+        private void addField(int start, int end, boolean quoted) {
+            if (fields == fieldStart.length) {
+                fieldStart = Arrays.copyOf(fieldStart, fields * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, fields * 2);
+                fieldQuoted = Arrays.copyOf(fieldQuoted, fields * 2);
+            }
+            while (start < end && isSpace(buf.get(start))) start++;
+            while (end > start && isSpace(buf.get(end - 1))) end--;
+            fieldStart[fields] = start;
+            fieldEnd[fields] = end;
+            fieldQuoted[fields] = quoted;
+            fields++;
+        }
+
+        private boolean isEmpty(int f) {
+            return fieldQuoted[f] ? text(f, false).isEmpty() : fieldStart[f] == fieldEnd[f];
+        }
+
+        private VehicleType type(int f) throws InvalidOperationException {
+            if (!fieldQuoted[f]) {
+                int start = fieldStart[f];
+                int length = fieldEnd[f] - start;
+                for (VehicleType type : TYPES) {
+                    byte[] name = TYPE_NAMES[type.getCode()];
+                    if (name.length == length && matches(name, start)) return type;
+                }
+            }
+            String name = text(f, false);
+            try {
+                return VehicleType.fromName(name);
+            } catch (InvalidOperationException e) {
+                throw new InvalidOperationException("Unknown vehicle type in CSV: " + name);
+            }
+        }
+
+        private boolean matches(byte[] name, int start) {
+            for (int i = 0; i < name.length; i++) {
+                if (buf.get(start + i) != name[i]) return false;
+            }
+            return true;
+        }
+
+        // Models repeat heavily across a fleet, so rows with the same model bytes share
+        // one String through a small direct-mapped cache.
+        private String model(int f) {
+            int length = unquote(f, true);
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + scratch[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (modelKeys.length - 1);
+            byte[] key = modelKeys[slot];
+            if (key != null && Arrays.equals(key, 0, key.length, scratch, 0, length)) {
+                return modelValues[slot];
+            }
+            String model = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            modelKeys[slot] = Arrays.copyOf(scratch, length);
+            modelValues[slot] = model;
+            return model;
+        }
+
+        private String text(int f, boolean dropQuotes) {
+            return new String(scratch, 0, unquote(f, dropQuotes), StandardCharsets.UTF_8);
+        }
+
+        private String decode(int start, int end) {
+            ensureScratch(end - start);
+            for (int i = start; i < end; i++) {
+                scratch[i - start] = buf.get(i);
+            }
+            return new String(scratch, 0, end - start, StandardCharsets.UTF_8);
+        }
+
+        // Copies the field into scratch with quoting removed and returns the trimmed length.
+        private int unquote(int f, boolean dropQuotes) {
+            int start = fieldStart[f];
+            int end = fieldEnd[f];
+            ensureScratch(end - start);
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buf.get(i);
+                if (b == '"') {
+                    if (i + 1 < end && buf.get(i + 1) == '"') {
+                        i++;
+                        if (!dropQuotes) scratch[length++] = b;
+                    }
+                    continue;
+                }
+                scratch[length++] = b;
+            }
+            if (!fieldQuoted[f]) return length;
+            int from = 0;
+            while (from < length && isSpace(scratch[from])) from++;
+            while (length > from && isSpace(scratch[length - 1])) length--;
+            if (from > 0) {
+                System.arraycopy(scratch, from, scratch, 0, length - from);
+            }
+            return length - from;
+        }
+
+        private void ensureScratch(int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+        }
+
+        private boolean parseBoolean(int f) {
+            if (fieldQuoted[f]) return Boolean.parseBoolean(text(f, false));
+            int start = fieldStart[f];
+            if (fieldEnd[f] - start != 4) return false;
+            return (buf.get(start) | 0x20) == 't' && (buf.get(start + 1) | 0x20) == 'r'
+                    && (buf.get(start + 2) | 0x20) == 'u' && (buf.get(start + 3) | 0x20) == 'e';
+        }
+
+        private int parseInt(int f) {
+            int start = fieldStart[f];
+            int end = fieldEnd[f];
+            if (!fieldQuoted[f] && start < end && end - start <= 9) {
+                int i = start;
+                boolean negative = buf.get(i) == '-';
+                if (negative || buf.get(i) == '+') i++;
+                if (i < end) {
+                    int value = 0;
+                    for (; i < end; i++) {
+                        int digit = buf.get(i) - '0';
+                        if (digit < 0 || digit > 9) break;
+                        value = value * 10 + digit;
+                    }
+                    if (i == end) return negative ? -value : value;
+                }
+            }
+            return Integer.parseInt(text(f, false));
+        }
+
+        // Plain decimals with at most 15 significant digits and a small exponent are exact
+        // in a double, so one multiplication or division by an exact power of ten rounds
+        // correctly. Everything else goes through Double.parseDouble.
+        private double parseDouble(int f) {
+            int start = fieldStart[f];
+            int end = fieldEnd[f];
+            if (fieldQuoted[f] || start == end) return Double.parseDouble(text(f, false));
+            int i = start;
+            boolean negative = buf.get(i) == '-';
+            if (negative || buf.get(i) == '+') i++;
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean seenDigit = false;
+            boolean seenPoint = false;
+            for (; i < end; i++) {
+                byte b = buf.get(i);
+                if (b >= '0' && b <= '9') {
+                    seenDigit = true;
+                    if (mantissa == 0 && b == '0') {
+                        if (seenPoint) scale--;
+                        continue;
+                    }
+                    if (++digits > MAX_FAST_DIGITS) break;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (seenPoint) scale--;
+                } else if (b == '.' && !seenPoint) {
+                    seenPoint = true;
+                } else {
+                    break;
+                }
+            }
+            if (i != end || !seenDigit || -scale >= POW10.length) {
+                return Double.parseDouble(text(f, false));
+            }
+            double value = mantissa == 0 ? 0.0 : mantissa / POW10[-scale];
+            return negative ? -value : value;
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (!isSpace(buf.get(i))) return false;
+            }
+            return true;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b >= 0 && b <= ' ';
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package fleet;
+
+// Orderings offered by FleetManager.getSorted, each matching the corresponding sortBy method.
+// Ties keep the order in which the vehicles were added.
+public enum SortKey {
+    ID(false),
+    MODEL(false),
+    MAX_SPEED(false),   // fastest first
+    TYPE(false),
+    FUEL_LEVEL(true),   // fullest first; vehicles without fuel count as 0
+    MILEAGE(true),      // highest first
+    EFFICIENCY(true);   // least efficient first, like sortFleetByEfficiency
+
+    private final boolean mutable;
+
+    SortKey(boolean mutable) {
+        this.mutable = mutable;
+    }
+
+    // Whether the key can change while the vehicle stays in the fleet.
+    boolean isMutable() {
+        return mutable;
+    }
+}
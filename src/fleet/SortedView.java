@@ -0,0 +1,203 @@
+package fleet;
+
+import java.util.*;
+import vehicle.Vehicle;
+import interfaces.FuelConsumable;
+
+// One ordering of the vehicles tracked by a FleetIndex, kept as a treap with subtree sizes so
+// that a page at any offset costs O(log n + page). Nodes are the index's vehicle handles and
+// the tree lives in int arrays indexed by handle, without a node object per vehicle. Ties are
+// broken by the order in which vehicles were added, so every vehicle has a unique position.
+//
+// Numeric keys are stored when a vehicle is inserted: a vehicle is always found again under
+// the key it was filed with, and refresh() moves it once its live value has changed.
+final class SortedView {
+    private static final int NIL = -1;
+
+    private final SortKey key;
+    private final FleetIndex owner;
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int[] size = new int[0];
+    private double[] keys = new double[0];
+    private int root = NIL;
+
+    // Results of split().
+    private int splitLeft;
+    private int splitRight;
+
+    SortedView(SortKey key, FleetIndex owner) {
+        this.key = key;
+        this.owner = owner;
+    }
+
+    SortKey key() {
+        return key;
+    }
+
+    int size() {
+        return sizeOf(root);
+    }
+
+    void ensureCapacity(int handles) {
+        if (handles <= left.length) return;
+        left = Arrays.copyOf(left, handles);
+        right = Arrays.copyOf(right, handles);
+        size = Arrays.copyOf(size, handles);
+        keys = Arrays.copyOf(keys, handles);
+    }
+
+    void insert(int h) {
+        keys[h] = numericKey(owner.vehicle(h));
+        left[h] = NIL;
+        right[h] = NIL;
+        size[h] = 1;
+        root = insert(root, h);
+    }
+
+    void remove(int h) {
+        root = remove(root, h);
+    }
+
+    void refresh(int h) {
+        if (Double.compare(numericKey(owner.vehicle(h)), keys[h]) != 0) {
+            remove(h);
+            insert(h);
+        }
+    }
+
+    void clear() {
+        root = NIL;
+    }
+
+    List<Vehicle> page(int offset, int limit) {
+        int total = size();
+        if (offset >= total || limit == 0) return new ArrayList<>();
+        List<Vehicle> result = new ArrayList<>(Math.min(limit, total - offset));
+        int[] stack = new int[32];
+        int depth = 0;
+
+        // Walk down to the vehicle at rank offset, keeping the nodes still to be visited.
+        int node = root;
+        int rank = offset;
+        while (node != NIL) {
+            int leftSize = sizeOf(left[node]);
+            if (rank <= leftSize) {
+                if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = node;
+                if (rank == leftSize) break;
+                node = left[node];
+            } else {
+                rank -= leftSize + 1;
+                node = right[node];
+            }
+        }
+        while (depth > 0 && result.size() < limit) {
+            node = stack[--depth];
+            result.add(owner.vehicle(node));
+            for (int child = right[node]; child != NIL; child = left[child]) {
+                if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = child;
+            }
+        }
+        return result;
+    }
+
+    private int insert(int node, int h) {
+        if (node == NIL) return h;
+        if (priority(h) > priority(node)) {
+            split(node, h);
+            left[h] = splitLeft;
+            right[h] = splitRight;
+            update(h);
+            return h;
+        }
+        if (compare(h, node) < 0) {
+            left[node] = insert(left[node], h);
+        } else {
+            right[node] = insert(right[node], h);
+        }
+        update(node);
+        return node;
+    }
+
+    private int remove(int node, int h) {
+        if (node == NIL) return NIL;
+        if (node == h) return merge(left[h], right[h]);
+        if (compare(h, node) < 0) {
+            left[node] = remove(left[node], h);
+        } else {
+            right[node] = remove(right[node], h);
+        }
+        update(node);
+        return node;
+    }
+
+    // Splits the subtree into the nodes ordered before h and those after it.
+    private void split(int node, int h) {
+        if (node == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+        } else if (compare(node, h) < 0) {
+            split(right[node], h);
+            right[node] = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            split(left[node], h);
+            left[node] = splitRight;
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private void update(int node) {
+        size[node] = 1 + sizeOf(left[node]) + sizeOf(right[node]);
+    }
+
+    private int sizeOf(int node) {
+        return node == NIL ? 0 : size[node];
+    }
+
+    private int compare(int a, int b) {
+        int c = switch (key) {
+            case ID -> owner.vehicle(a).getId().compareTo(owner.vehicle(b).getId());
+            case MODEL -> owner.vehicle(a).getModel().compareTo(owner.vehicle(b).getModel());
+            case TYPE -> owner.vehicle(a).getClass().getSimpleName().compareTo(owner.vehicle(b).getClass().getSimpleName());
+            case MAX_SPEED, FUEL_LEVEL, MILEAGE -> Double.compare(keys[b], keys[a]);
+            case EFFICIENCY -> Double.compare(keys[a], keys[b]);
+        };
+        return c != 0 ? c : Long.compare(owner.sequence(a), owner.sequence(b));
+    }
+
+    private double numericKey(Vehicle v) {
+        return switch (key) {
+            case MAX_SPEED -> v.getMaxSpeed();
+            case FUEL_LEVEL -> v instanceof FuelConsumable fc ? fc.getFuelLevel() : 0.0;
+            case MILEAGE -> v.getCurrentMileage();
+            case EFFICIENCY -> v.calculateFuelEfficiency();
+            default -> 0.0;
+        };
+    }
+
+    // Treap priorities derived from the handle, so they need no storage of their own.
+    private static int priority(int h) {
+        int x = h * 0x9E3779B9;
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        return x ^ (x >>> 13);
+    }
+}
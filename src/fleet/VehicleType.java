@@ -0,0 +1,92 @@
+package fleet;
+
+import java.util.List;
+import vehicle.*;
+import exception.InvalidOperationException;
+
+// Compact type codes for the concrete vehicle classes. The capacities and maintenance
+// thresholds mirror the vehicle classes so that code working on raw
+// columns or bytes can apply them without a Vehicle instance.
+public enum VehicleType {
+    CAR(0, "Car", 5, 0.0, 10000),
+    TRUCK(1, "Truck", 0, 5000.0, 10000),
+    BUS(2, "Bus", 50, 500.0, 10000),
+    AIRPLANE(3, "Airplane", 200, 10000.0, 10000),
+    CARGO_SHIP(4, "CargoShip", 0, 50000.0, 50000);
+
+    private static final VehicleType[] BY_CODE = values();
+    // The order fleet reports list the types in. It is the iteration order of the HashMap the
+    // report used to count types in, kept so that reports read as they always have.
+    static final List<VehicleType> REPORT_ORDER = List.of(CARGO_SHIP, BUS, AIRPLANE, CAR, TRUCK);
+
+    private final byte code;
+    private final String typeName;
+    private final int passengerCapacity;
+    private final double cargoCapacity;
+    private final double maintenanceMileage;
+
+    VehicleType(int code, String typeName, int passengerCapacity, double cargoCapacity, double maintenanceMileage) {
+        this.code = (byte) code;
+        this.typeName = typeName;
+        this.passengerCapacity = passengerCapacity;
+        this.cargoCapacity = cargoCapacity;
+        this.maintenanceMileage = maintenanceMileage;
+    }
+
+    public byte getCode() { return code; }
+    public String getTypeName() { return typeName; }
+    public int getPassengerCapacity() { return passengerCapacity; }
+    public double getCargoCapacity() { return cargoCapacity; }
+    public double getMaintenanceMileage() { return maintenanceMileage; }
+    public boolean carriesPassengers() { return passengerCapacity > 0; }
+    public boolean carriesCargo() { return cargoCapacity > 0; }
+
+    public static VehicleType fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown vehicle type code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    public static VehicleType fromName(String typeName) throws InvalidOperationException {
+        for (VehicleType type : BY_CODE) {
+            if (type.typeName.equals(typeName)) return type;
+        }
+        throw new InvalidOperationException("Unknown vehicle type: " + typeName);
+    }
+
+    public static VehicleType of(Vehicle v) {
+        if (v instanceof Car) return CAR;
+        if (v instanceof Truck) return TRUCK;
+        if (v instanceof Bus) return BUS;
+        if (v instanceof Airplane) return AIRPLANE;
+        if (v instanceof CargoShip) return CARGO_SHIP;
+        throw new IllegalArgumentException("Unsupported vehicle class: " + v.getClass().getName());
+    }
+
+    // Number of wheels, maximum altitude, or 1/0 for a sail, depending on the type.
+    public static double extraOf(Vehicle v) {
+        if (v instanceof LandVehicle lv) return lv.getNumWheels();
+        if (v instanceof AirVehicle av) return av.getMaxAltitude();
+        if (v instanceof WaterVehicle wv) return wv.hasSail() ? 1.0 : 0.0;
+        return 0.0;
+    }
+
+    public Vehicle create(String id, String model, double maxSpeed, double extra) throws InvalidOperationException {
+        return switch (this) {
+            case CAR -> new Car(id, model, maxSpeed, (int) extra);
+            case TRUCK -> new Truck(id, model, maxSpeed, (int) extra);
+            case BUS -> new Bus(id, model, maxSpeed, (int) extra);
+            case AIRPLANE -> new Airplane(id, model, maxSpeed, extra);
+            case CARGO_SHIP -> new CargoShip(id, model, maxSpeed, extra != 0.0);
+        };
+    }
+
+    public String insufficientFuelMessage() {
+        return switch (this) {
+            case AIRPLANE -> "Not enough fuel.";
+            case CARGO_SHIP -> "Not enough fuel to sail.";
+            default -> "Not enough fuel to move.";
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package interfaces;
+
+import vehicle.Vehicle;
+
+public interface MovementSink {
+    void vehicleMoved(Vehicle vehicle, double distance);
+
+    // A batch of steps equal moves, as made by Vehicle.tryMoveSteps; sinks that only count can
+    // take the batch at once, but each step is still one move.
+    default void vehicleMovedSteps(Vehicle vehicle, double distance, int steps) {
+        for (int i = 0; i < steps; i++) {
+            vehicleMoved(vehicle, distance);
+        }
+    }
+}
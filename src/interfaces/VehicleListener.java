@@ -0,0 +1,13 @@
+package interfaces;
+
+import vehicle.Vehicle;
+
+// Receives every change to a vehicle's mutable state. Moves are by far the most frequent
+// change and only touch mileage and fuel, so they get their own callback with the delta.
+public interface VehicleListener {
+    // Mileage changed by delta, possibly together with fuel; nothing else changed.
+    void mileageChanged(Vehicle vehicle, double delta);
+
+    // Any other change: fuel, load, the maintenance flag, or whether maintenance is needed.
+    void vehicleChanged(Vehicle vehicle);
+}
@@ -3,13 +3,18 @@ package main;
 import java.util.*;
 
 import fleet.FleetManager;
+import fleet.SortKey;
 import interfaces.CargoCarrier;
+import metrics.Metrics;
 import vehicle.*;
 import exception.*;
 
 public class Main {
 
     public static void main(String[] args) {
+        for (String arg : args) {
+            if (!Metrics.startFromFlag(arg)) System.out.println("Unknown option: " + arg);
+        }
         FleetManager fleetManager = new FleetManager();
         Scanner sc = new Scanner(System.in);
 
@@ -85,6 +90,7 @@ public class Main {
                     case 13 -> sortVehiclesCLI(sc, fleetManager);
                     case 14 -> {
                         System.out.println("Exiting...");
+                        Metrics.shutdown();
                         sc.close();
                         return;
                     }
@@ -529,7 +535,7 @@ public class Main {
         System.out.println("4. Sort by Type");
         System.out.println("5. Sort by Fuel Level");
         System.out.println("6. Sort by Mileage");
-        System.out.print("Enter sorting choice (1-9): ");
+        System.out.print("Enter sorting choice (1-6): ");
         
         String input = sc.nextLine().trim();
         int sortChoice;
@@ -540,24 +546,24 @@ public class Main {
             return;
         }
 
-        switch (sortChoice) {
-            case 1 -> fleetManager.sortById();
-            case 2 -> fleetManager.sortByModel();
-            case 3 -> fleetManager.sortByMaxSpeed();
-            case 5 -> fleetManager.sortByType();
-            case 6 -> fleetManager.sortByFuelLevel();
-            case 8 -> fleetManager.sortByMileage();
-            default -> {
-                System.out.println("Invalid sorting option!");
-                return;
-            }
+        SortKey key = switch (sortChoice) {
+            case 1 -> SortKey.ID;
+            case 2 -> SortKey.MODEL;
+            case 3 -> SortKey.MAX_SPEED;
+            case 4 -> SortKey.TYPE;
+            case 5 -> SortKey.FUEL_LEVEL;
+            case 6 -> SortKey.MILEAGE;
+            default -> null;
+        };
+        if (key == null) {
+            System.out.println("Invalid sorting option!");
+            return;
         }
 
-        System.out.println("Vehicles sorted successfully!");
-        System.out.println("\nSorted Fleet (Type and ID):");
-        System.out.println("---------------------------");
+        System.out.println("\nSorted View (Type and ID; fleet order unchanged):");
+        System.out.println("--------------------------------------------------");
 
-        for (Vehicle v : fleetManager.getFleet()) {
+        for (Vehicle v : fleetManager.getSorted(key)) {
             System.out.println(v.basicInfo());
         }
     }
@@ -0,0 +1,51 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A count of events, such as moves made, striped like LatencyHistogram so that recording
+// allocates nothing and threads rarely share a cache line. Metrics reports its total and its
+// rate per second since the previous export.
+public final class EventCounter {
+    private static final int PAD = 8;
+
+    private final String name;
+    private final int stripeMask;
+    private final AtomicLongArray cells;
+    // The total and time of the previous export, guarded by Metrics.
+    long exportedSum;
+    long exportedNanos = System.nanoTime();
+
+    EventCounter(String name) {
+        this.name = name;
+        int stripes = Metrics.stripes();
+        stripeMask = stripes - 1;
+        cells = new AtomicLongArray(stripes * PAD);
+    }
+
+    public String getName() { return name; }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long n) {
+        if (!Metrics.enabled) return;
+        cells.getAndAdd((Metrics.stripeOfCurrentThread() & stripeMask) * PAD, n);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int s = 0; s <= stripeMask; s++) {
+            sum += cells.get(s * PAD);
+        }
+        return sum;
+    }
+
+    void reset() {
+        for (int s = 0; s <= stripeMask; s++) {
+            cells.set(s * PAD, 0);
+        }
+        exportedSum = 0;
+        exportedNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,154 @@
+package metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency of one operation in nanoseconds, in HDR-style log-linear buckets: exact below 32 ns,
+// then 32 buckets per power of two, so any value is known to within about 3%. Values above
+// MAX_NANOS (about 18 minutes) count as MAX_NANOS.
+//
+// Recording allocates nothing and takes no lock: each thread adds to one of a few stripes of
+// the bucket counts, picked by its thread id, so threads rarely update the same cache line.
+// Operations too short to time every call time one call in sampleEvery, chosen at random.
+//
+//     long begin = Metrics.MOVE.begin();
+//     ...
+//     Metrics.MOVE.end(begin);
+public final class LatencyHistogram {
+    public static final long MAX_NANOS = (1L << 40) - 1;
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - Long.numberOfLeadingZeros(MAX_NANOS) - SUB_BITS + 1) * SUB_BUCKETS;
+    // Longs between the sums of two stripes, so that they sit on different cache lines.
+    private static final int PAD = 8;
+
+    private final String name;
+    private final int sampleMask;
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray sums;
+    private final AtomicLong max = new AtomicLong();
+
+    // sampleEvery must be a power of two; 1 times every call.
+    LatencyHistogram(String name, int sampleEvery) {
+        if (sampleEvery < 1 || Integer.bitCount(sampleEvery) != 1) {
+            throw new IllegalArgumentException("Sampling interval must be a power of two.");
+        }
+        this.name = name;
+        sampleMask = sampleEvery - 1;
+        int stripes = Metrics.stripes();
+        stripeMask = stripes - 1;
+        counts = new AtomicLongArray(stripes * BUCKETS);
+        sums = new AtomicLongArray(stripes * PAD);
+    }
+
+    public String getName() { return name; }
+    public int getSampleEvery() { return sampleMask + 1; }
+
+    // The start time to pass to end(), or NOT_TIMED when metrics are off or this call is not
+    // sampled.
+    public long begin() {
+        if (!Metrics.enabled) return NOT_TIMED;
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    public void end(long begin) {
+        if (begin != NOT_TIMED) record(System.nanoTime() - begin);
+    }
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_NANOS);
+        int stripe = Metrics.stripeOfCurrentThread() & stripeMask;
+        counts.getAndIncrement(stripe * BUCKETS + bucketOf(value));
+        sums.getAndAdd(stripe * PAD, value);
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    // Recordings keep coming in while this runs, so the result is a recent state rather than an
+    // exact one.
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        for (int s = 0; s <= stripeMask; s++) {
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = counts.get(s * BUCKETS + b);
+                merged[b] += c;
+                count += c;
+            }
+        }
+        long sum = 0;
+        for (int s = 0; s <= stripeMask; s++) {
+            sum += sums.get(s * PAD);
+        }
+        return new Snapshot(merged, count, sum, max.get());
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        for (int i = 0; i < sums.length(); i++) {
+            sums.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int top = (int) (value >>> (magnitude - SUB_BITS));
+        return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + top - SUB_BUCKETS;
+    }
+
+    static long lowestOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int magnitude = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return top << (magnitude - SUB_BITS);
+    }
+
+    // Sampled recordings only: count is the number of calls timed, not made.
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMax() { return max; }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        // The value below which the fraction q of recordings fall, as the middle of its bucket.
+        public long percentile(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                seen += counts[b];
+                if (seen >= rank) {
+                    long low = lowestOf(b);
+                    long width = lowestOf(b + 1) - low;
+                    return Math.min(low + (width - 1) / 2, max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// The simulator's metrics: a latency histogram per instrumented operation and counters for
+// throughput and lock waits. Off by default, in which case recording is a single volatile read;
+// when on, recording takes no lock and allocates nothing. Moves and refuels take tens of
+// nanoseconds, so one call in 64 is timed; the file operations and reports are timed every
+// time.
+//
+// export() renders everything in the Prometheus text format, which exportEvery() writes to a
+// file and serve() serves from http://127.0.0.1:<port>/metrics.
+public final class Metrics {
+    static volatile boolean enabled;
+
+    private static final int STRIPES = Math.min(Integer.highestOneBit(Math.max(1, 2 * Runtime.getRuntime().availableProcessors() - 1)), 16);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final List<LatencyHistogram> HISTOGRAMS = new ArrayList<>();
+    private static final List<EventCounter> COUNTERS = new ArrayList<>();
+    private static ScheduledExecutorService exporter;
+    // Started by startFromFlag(), for shutdown().
+    private static HttpServer server;
+    private static Path exportFile;
+
+    public static final LatencyHistogram MOVE = histogram("move", 64);
+    public static final LatencyHistogram REFUEL = histogram("refuel", 64);
+    public static final LatencyHistogram LOAD_FROM_FILE = histogram("load_from_file", 1);
+    public static final LatencyHistogram SAVE_TO_FILE = histogram("save_to_file", 1);
+    public static final LatencyHistogram GENERATE_REPORT = histogram("generate_report", 1);
+    // Time a thread spent blocked on the lock of the synchronized highway counter.
+    public static final LatencyHistogram COUNTER_LOCK_WAIT = histogram("counter_lock_wait", 1);
+
+    // Kilometre moves made, counting each step of a multi-km move.
+    public static final EventCounter MOVES = counter("moves");
+    public static final EventCounter COUNTER_LOCK_WAITS = counter("counter_lock_waits");
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static synchronized void reset() {
+        for (LatencyHistogram h : HISTOGRAMS) {
+            h.reset();
+        }
+        for (EventCounter c : COUNTERS) {
+            c.reset();
+        }
+    }
+
+    public static synchronized String export() {
+        StringBuilder out = new StringBuilder();
+        out.append("# Highway simulator metrics at ").append(Instant.now()).append(enabled ? "" : " (recording off)").append('\n');
+        for (LatencyHistogram h : HISTOGRAMS) {
+            LatencyHistogram.Snapshot s = h.snapshot();
+            String name = h.getName() + "_nanos";
+            if (h.getSampleEvery() > 1) {
+                out.append("# ").append(h.getName()).append(" is timed for one call in ").append(h.getSampleEvery()).append('\n');
+            }
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(q).append("\"} ").append(s.percentile(q)).append('\n');
+            }
+            out.append(name).append("_count ").append(s.getCount()).append('\n');
+            out.append(name).append("_sum ").append(Math.round(s.getMean() * s.getCount())).append('\n');
+            out.append("# TYPE ").append(name).append("_max gauge\n");
+            out.append(name).append("_max ").append(s.getMax()).append('\n');
+        }
+        long now = System.nanoTime();
+        for (EventCounter c : COUNTERS) {
+            long sum = c.sum();
+            double seconds = (now - c.exportedNanos) / 1e9;
+            double rate = seconds > 0 ? (sum - c.exportedSum) / seconds : 0.0;
+            c.exportedSum = sum;
+            c.exportedNanos = now;
+            out.append("# TYPE ").append(c.getName()).append("_total counter\n");
+            out.append(c.getName()).append("_total ").append(sum).append('\n');
+            out.append("# TYPE ").append(c.getName()).append("_per_second gauge\n");
+            out.append(c.getName()).append("_per_second ").append(String.format("%.1f", rate)).append('\n');
+        }
+        return out.toString();
+    }
+
+    // Replaces the file in one step, so a reader never sees half an export.
+    public static void writeTo(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.writeString(temp, export());
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Writes the file now and then every periodSeconds from a daemon thread, until the returned
+    // future is cancelled.
+    public static synchronized ScheduledFuture<?> exportEvery(Path file, long periodSeconds) {
+        if (exporter == null) {
+            exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-export");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return exporter.scheduleAtFixedRate(() -> {
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+            }
+        }, 0, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // Serves export() on the loopback interface only; stop() the server when done.
+    public static HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = export().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    // Handles --metrics-file=PATH and --metrics-port=N for the command lines: either turns
+    // recording on and starts exporting every 5 s or serving. Returns false for other arguments.
+    public static boolean startFromFlag(String arg) {
+        if (arg.startsWith("--metrics-file=")) {
+            Path file = Path.of(arg.substring("--metrics-file=".length()));
+            setEnabled(true);
+            synchronized (Metrics.class) {
+                exportFile = file;
+            }
+            exportEvery(file, 5);
+            System.out.println("Writing metrics to " + file.toAbsolutePath() + " every 5 s");
+            return true;
+        }
+        if (arg.startsWith("--metrics-port=")) {
+            try {
+                int port = Integer.parseInt(arg.substring("--metrics-port=".length()));
+                HttpServer started = serve(port);
+                synchronized (Metrics.class) {
+                    server = started;
+                }
+                setEnabled(true);
+                System.out.println("Serving metrics at http://127.0.0.1:" + started.getAddress().getPort() + "/metrics");
+            } catch (NumberFormatException | IOException e) {
+                System.out.println("Could not serve metrics for " + arg + ": " + e.getMessage());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Stops what startFromFlag() started, writing the metrics file one last time; the server
+    // would otherwise keep the JVM running.
+    public static synchronized void shutdown() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (exporter != null) {
+            exporter.shutdownNow();
+            exporter = null;
+        }
+        if (exportFile != null) {
+            try {
+                writeTo(exportFile);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics to " + exportFile + ": " + e.getMessage());
+            }
+            exportFile = null;
+        }
+    }
+
+    static int stripes() {
+        return STRIPES;
+    }
+
+    // Thread ids are handed out in sequence, so consecutive threads get different stripes.
+    static int stripeOfCurrentThread() {
+        return (int) Thread.currentThread().threadId();
+    }
+
+    private static LatencyHistogram histogram(String name, int sampleEvery) {
+        LatencyHistogram h = new LatencyHistogram(name, sampleEvery);
+        HISTOGRAMS.add(h);
+        return h;
+    }
+
+    private static EventCounter counter(String name) {
+        EventCounter c = new EventCounter(name);
+        COUNTERS.add(c);
+        return c;
+    }
+}
@@ -0,0 +1,65 @@
+package road;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Bounded single-producer, single-consumer queue of vehicle slots, carrying the vehicles that
+// cross from one partition of a RoadTraffic into the next. Neither side locks or waits: offer()
+// fails when the queue is full and poll() returns -1 when it is empty. Only the producer writes
+// tail and only the consumer writes head; each keeps a cached copy of the other's index and
+// reads the real one only when the cached one says full or empty.
+final class HandoffQueue {
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(HandoffQueue.class, "head", long.class);
+            TAIL = lookup.findVarHandle(HandoffQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int[] slots;
+    private final int mask;
+    private long head;
+    private long tail;
+    // The producer's view of head and the consumer's view of tail.
+    private long knownHead;
+    private long knownTail;
+
+    // Capacity is rounded up to a power of two.
+    HandoffQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        slots = new int[size];
+        mask = size - 1;
+    }
+
+    boolean offer(int slot) {
+        long t = tail;
+        if (t - knownHead == slots.length) {
+            knownHead = (long) HEAD.getAcquire(this);
+            if (t - knownHead == slots.length) return false;
+        }
+        slots[(int) t & mask] = slot;
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    int poll() {
+        long h = head;
+        if (h == knownTail) {
+            knownTail = (long) TAIL.getAcquire(this);
+            if (h == knownTail) return -1;
+        }
+        int slot = slots[(int) h & mask];
+        HEAD.setRelease(this, h + 1);
+        return slot;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
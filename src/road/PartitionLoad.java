@@ -0,0 +1,9 @@
+package road;
+
+// What one partition of a RoadTraffic has done since the traffic was created or last
+// rebalanced: the stretch it owns, the vehicles on it now, the vehicle steps it has made and
+// the vehicles it has handed to the next partition, and how long its worker spent working
+// and waiting at the barriers between phases.
+public record PartitionLoad(int index, double startKm, double endKm, int vehicles, long vehicleSteps,
+                            long handedOff, double busyMillis, double waitMillis) {
+}
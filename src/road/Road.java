@@ -0,0 +1,90 @@
+package road;
+
+import java.util.List;
+
+// A one-way corridor of consecutive segments. Positions are metres from the start of the first
+// segment. For every segment and lane the road knows where that lane next ends, so a vehicle
+// sees a lane drop coming without looking past its own segment.
+public final class Road {
+    private final Segment[] segments;
+    // Start of each segment in metres, followed by the end of the road.
+    private final double[] starts;
+    private final double[] speedLimits;
+    private final double[][] laneEnds;
+    private final int maxLanes;
+
+    public Road(List<Segment> segments) {
+        if (segments.isEmpty()) throw new IllegalArgumentException("A road needs at least one segment.");
+        this.segments = segments.toArray(new Segment[0]);
+        int n = this.segments.length;
+        starts = new double[n + 1];
+        speedLimits = new double[n];
+        int lanes = 0;
+        for (int i = 0; i < n; i++) {
+            starts[i + 1] = starts[i] + this.segments[i].lengthKm() * 1000.0;
+            speedLimits[i] = this.segments[i].speedLimit() / 3.6;
+            lanes = Math.max(lanes, this.segments[i].lanes());
+        }
+        maxLanes = lanes;
+        laneEnds = new double[n][maxLanes];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int lane = 0; lane < maxLanes; lane++) {
+                if (lane >= this.segments[i].lanes()) laneEnds[i][lane] = starts[i];
+                else if (i == n - 1) laneEnds[i][lane] = Double.POSITIVE_INFINITY;
+                else if (lane >= this.segments[i + 1].lanes()) laneEnds[i][lane] = starts[i + 1];
+                else laneEnds[i][lane] = laneEnds[i + 1][lane];
+            }
+        }
+    }
+
+    public static Road uniform(double lengthKm, int lanes, double speedLimit) {
+        return new Road(List.of(new Segment(lengthKm, lanes, speedLimit)));
+    }
+
+    // The road the command-line simulations drive: dropKm > 0 closes the top lane for that many
+    // km half way along.
+    public static Road corridor(double lengthKm, int lanes, double speedLimit, double dropKm) {
+        if (dropKm <= 0 || lanes < 2) return uniform(lengthKm, lanes, speedLimit);
+        double before = (lengthKm - dropKm) / 2;
+        return new Road(List.of(new Segment(before, lanes, speedLimit),
+                new Segment(dropKm, lanes - 1, speedLimit),
+                new Segment(lengthKm - before - dropKm, lanes, speedLimit)));
+    }
+
+    public int getSegmentCount() { return segments.length; }
+    public Segment getSegment(int index) { return segments[index]; }
+    public int getMaxLanes() { return maxLanes; }
+    public double getLengthKm() { return starts[segments.length] / 1000.0; }
+
+    // The segment containing the position, found by binary search.
+    public int segmentAt(double positionKm) {
+        double metres = positionKm * 1000.0;
+        int low = 0;
+        int high = segments.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= metres) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    double length() {
+        return starts[segments.length];
+    }
+
+    double end(int segment) {
+        return starts[segment + 1];
+    }
+
+    // In metres per second.
+    double speedLimit(int segment) {
+        return speedLimits[segment];
+    }
+
+    // Where the lane stops, in metres, for a vehicle in the segment; infinite if it runs to the
+    // end of the road, and the segment's start if the segment does not have the lane.
+    double laneEnd(int segment, int lane) {
+        return laneEnds[segment][lane];
+    }
+}
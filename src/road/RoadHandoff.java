@@ -0,0 +1,11 @@
+package road;
+
+import vehicle.LandVehicle;
+
+// A vehicle leaving one stretch of a road for the next, with what the traffic on the next
+// stretch needs to carry on driving it: lane, front position (km from the start of the road),
+// speed (km/h), distance driven since its last move (km), when it last changed lane (simulated
+// seconds) and whether it has stalled.
+public record RoadHandoff(LandVehicle vehicle, int lane, double positionKm, double speed, double travelledKm,
+                          double lastLaneChange, boolean stalled) {
+}
@@ -0,0 +1,7 @@
+package road;
+
+import vehicle.LandVehicle;
+
+// Where a vehicle is on a Road: its lane, how far its front is from the start, and its speed in km/h.
+public record RoadPosition(LandVehicle vehicle, int lane, double positionKm, double speed) {
+}
@@ -0,0 +1,1244 @@
+package road;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+import vehicle.*;
+import exception.InvalidOperationException;
+import interfaces.FuelConsumable;
+import sink.CountingMovementSink;
+
+// Vehicles driving along a Road in fixed time steps. Each vehicle follows the one ahead in its
+// lane with the Intelligent Driver Model, changes lane when the neighbouring lane lets it go
+// faster, and must change when its lane ends; vehicles that cannot merge queue at the lane end.
+//
+// Every lane keeps its vehicles in an int array sorted by position, rear first, so the vehicle
+// ahead is simply the next entry. Lane changes find their gap with a cursor into the
+// neighbouring lane that only moves forward as the lane is walked, and each step rebuilds the
+// lanes by merging the vehicles that stay with those that arrive, which come sorted already.
+// A step costs O(1) per vehicle however dense the traffic. Within a step all lane changes go
+// the same way, towards lane 0 and away from it in turn, so no two vehicles change into the
+// same gap from opposite sides. Vehicle state lives in arrays indexed by slot.
+//
+// The road is split into partitions, consecutive stretches that each own the lanes' vehicles
+// within them and, with more than one, a worker thread of their own. A step runs in four
+// phases with all workers meeting at a barrier after each: vehicles handed over from the
+// partition behind are taken in, lane changes are decided, the lanes are rebuilt, and vehicles
+// drive. Every decision in a phase reads only state that no one writes in that phase, and a
+// vehicle moves on the positions its neighbours had at the start of the drive, so the result
+// does not depend on the number of partitions. A partition sees past its ends only the nearest
+// vehicle of each lane in the partitions around it, and vehicles crossing into the next
+// partition are handed off through a HandoffQueue. run(), step(), add(), place() and
+// rebalance() are for one thread at a time; the workers only run inside run().
+//
+// A RoadTraffic can also drive just a stretch of its road, as one shard of a simulation spread
+// over several processes. Vehicles reaching the end of the stretch then depart instead of
+// leaving the road, to be passed to the next stretch's arrive(). What the neighbouring stretches
+// look like is known only between steps, through setDownstream() and setUpstream(), and is
+// treated as one step old: vehicles follow the last known rear of the stretch ahead, whose
+// vehicles can only have moved on since, and a lane change just inside the start of a stretch
+// leaves room for the front vehicle behind to have moved a full step.
+//
+// A vehicle wants the lower of the segment's speed limit and its cruising speed, the speed at
+// which estimateJourneyTime() has it cover a kilometre, so a LandVehicle cruises 10% below
+// getMaxSpeed(). Every whole kilometre driven is made as a move of the vehicle, burning fuel
+// and counting towards maintenance; a vehicle whose move fails brakes to a halt and stays
+// there, blocking its lane.
+public final class RoadTraffic implements AutoCloseable {
+    public static final double DEFAULT_STEP_SECONDS = 0.5;
+    // Same reserve as SimulationEngine: at or below it a vehicle is out of fuel.
+    public static final double FUEL_RESERVE = 0.1;
+    // Shortest stretch a partition may own, so that vehicles cross at most one boundary in a
+    // step and the first partition sees every vehicle that matters to one entering the road.
+    public static final double MIN_PARTITION_KM = 1.0;
+
+    // Intelligent Driver Model parameters, in metres and seconds.
+    private static final double CAR_ACCELERATION = 1.5;
+    private static final double HEAVY_ACCELERATION = 0.8;
+    private static final double COMFORTABLE_BRAKING = 2.0;
+    private static final double MAX_BRAKING = 9.0;
+    private static final double MIN_GAP = 2.0;
+    private static final double HEADWAY = 1.5;
+    private static final double CAR_LENGTH = 4.5;
+    // Vehicles on more than four wheels.
+    private static final double HEAVY_LENGTH = 12.0;
+
+    // The hardest braking a lane change may force on the vehicle it cuts in front of.
+    private static final double SAFE_BRAKING = 4.0;
+    // Moving towards lane 0 is worth losing this much acceleration, moving away from it needs
+    // this much gain; the difference keeps vehicles from changing straight back.
+    private static final double KEEP_RIGHT_BIAS = 0.1;
+    private static final double OVERTAKE_GAIN = 0.3;
+    private static final double LANE_CHANGE_COOLDOWN = 4.0;
+    // A vehicle whose lane ends this close merges as soon as it safely can.
+    private static final double MERGE_ZONE = 800.0;
+    // How far ahead a lane end slows a vehicle down.
+    private static final double LANE_END_LOOKAHEAD = 2 * MERGE_ZONE;
+    // A vehicle entering the road ignores anything further along than this.
+    private static final double ENTRY_LOOKAHEAD = 500.0;
+    private static final double CLEARANCE = 0.1;
+    // Width of the position histogram rebalance() works from.
+    private static final double BALANCE_BIN = 100.0;
+    private static final int NONE = -1;
+
+    private static final int INTAKE = 0;
+    private static final int CHANGE_LANES = 1;
+    private static final int MERGE = 2;
+    private static final int DRIVE = 3;
+
+    private final Road road;
+    private final double stepSeconds;
+    private final Partition[] partitions;
+    // The stretch driven, in metres, and where each partition starts, followed by the end.
+    private final double start;
+    private final double end;
+    private final double[] bounds;
+    // The rear vehicle of each lane in the stretch ahead (its back is infinite when there is
+    // none) and the front vehicle of each lane in the stretch behind (negative infinity).
+    private final double[] downstreamBack;
+    private final double[] downstreamSpeed;
+    private final double[] upstreamFront;
+    private final double[] upstreamSpeed;
+    // The rearmost vehicle of each lane that departed in the last step.
+    private final double[] departedBack;
+    private final double[] departedSpeed;
+
+    private LandVehicle[] vehicles = new LandVehicle[16];
+    // Front of the vehicle, in metres from the start of the road.
+    private double[] position = new double[16];
+    // Metres per second.
+    private double[] speed = new double[16];
+    private double[] cruise = new double[16];
+    private double[] maxAcceleration = new double[16];
+    private double[] length = new double[16];
+    // Metres driven that have not been made as moves yet.
+    private double[] travelled = new double[16];
+    private double[] lastLaneChange = new double[16];
+    private int[] lane = new int[16];
+    private int[] segment = new int[16];
+    private boolean[] stalled = new boolean[16];
+    private int slotCount;
+    // Slots of vehicles that have left, for reuse.
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    // Slots of vehicles that departed the stretch and have not been taken yet.
+    private int[] departures = new int[16];
+    private int departureCount;
+
+    // Slots waiting to enter at the start of the road, in arrival order; taken by partition 0.
+    private int[] waiting = new int[16];
+    private int waitingHead;
+    private int waitingTail;
+
+    private long steps;
+    // Vehicles placed or arrived, and those taken by takeDepartures().
+    private int placedTotal;
+    private int departedTotal;
+
+    // Workers, one per partition when there is more than one. The gate lets them into and out
+    // of a run() together with the calling thread; the phase barrier separates the phases.
+    private final Thread[] workers;
+    private final CyclicBarrier gate;
+    private final CyclicBarrier phase;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private long stepsToRun;
+    private boolean closed;
+
+    public RoadTraffic(Road road) {
+        this(road, DEFAULT_STEP_SECONDS);
+    }
+
+    public RoadTraffic(Road road, double stepSeconds) {
+        this(road, stepSeconds, 1);
+    }
+
+    // Splits the road into partitionCount stretches of equal length, each driven by its own
+    // worker thread when there is more than one.
+    public RoadTraffic(Road road, double stepSeconds, int partitionCount) {
+        this(road, stepSeconds, partitionCount, 0.0, road.getLengthKm());
+    }
+
+    // Drives only the vehicles between startKm and endKm.
+    public RoadTraffic(Road road, double stepSeconds, int partitionCount, double startKm, double endKm) {
+        if (!(stepSeconds > 0)) throw new IllegalArgumentException("Step must be a positive number of seconds.");
+        if (partitionCount < 1) throw new IllegalArgumentException("Partition count must be positive.");
+        if (!(startKm >= 0 && startKm < endKm && endKm <= road.getLengthKm())) {
+            throw new IllegalArgumentException("The stretch from " + startKm + " km to " + endKm + " km is not on the road.");
+        }
+        if (partitionCount > 1 && endKm - startKm < partitionCount * MIN_PARTITION_KM) {
+            throw new IllegalArgumentException("A " + (endKm - startKm) + " km stretch cannot be split into "
+                    + partitionCount + " partitions of at least " + MIN_PARTITION_KM + " km.");
+        }
+        this.road = road;
+        this.stepSeconds = stepSeconds;
+        start = startKm * 1000.0;
+        end = endKm == road.getLengthKm() ? road.length() : endKm * 1000.0;
+        bounds = new double[partitionCount + 1];
+        for (int p = 0; p < partitionCount; p++) {
+            bounds[p] = start + (end - start) * p / partitionCount;
+        }
+        bounds[partitionCount] = end;
+        int laneCount = road.getMaxLanes();
+        downstreamBack = new double[laneCount];
+        downstreamSpeed = new double[laneCount];
+        upstreamFront = new double[laneCount];
+        upstreamSpeed = new double[laneCount];
+        departedBack = new double[laneCount];
+        departedSpeed = new double[laneCount];
+        Arrays.fill(downstreamBack, Double.POSITIVE_INFINITY);
+        Arrays.fill(upstreamFront, Double.NEGATIVE_INFINITY);
+        Arrays.fill(departedBack, Double.POSITIVE_INFINITY);
+
+        // Vehicles in a lane are at least a car length apart and no faster than the fastest
+        // speed limit, which bounds how many can cross a boundary in one step.
+        double fastest = 0.0;
+        for (int s = 0; s < road.getSegmentCount(); s++) {
+            fastest = Math.max(fastest, road.speedLimit(s));
+        }
+        int perLane = (int) Math.ceil(fastest * stepSeconds / (CAR_LENGTH + CLEARANCE)) + 2;
+        int handoffCapacity = 2 * perLane * road.getMaxLanes();
+        partitions = new Partition[partitionCount];
+        for (int p = 0; p < partitionCount; p++) {
+            partitions[p] = new Partition(p, p == 0 ? null : new HandoffQueue(handoffCapacity));
+        }
+
+        if (partitionCount == 1) {
+            workers = null;
+            gate = null;
+            phase = null;
+        } else {
+            workers = new Thread[partitionCount];
+            gate = new CyclicBarrier(partitionCount + 1);
+            phase = new CyclicBarrier(partitionCount);
+            for (int p = 0; p < partitionCount; p++) {
+                Partition partition = partitions[p];
+                workers[p] = new Thread(() -> work(partition), "road-partition-" + p);
+                workers[p].setDaemon(true);
+                workers[p].start();
+            }
+        }
+    }
+
+    // Queues the vehicle at the start of the road; it enters the first lane with room for it.
+    public void add(LandVehicle v) throws InvalidOperationException {
+        if (start > 0) throw new InvalidOperationException("Vehicles enter at the start of the road, which this stretch does not include.");
+        int slot = allocate(v);
+        if (waitingTail == waiting.length) {
+            if (waitingHead > 0) {
+                System.arraycopy(waiting, waitingHead, waiting, 0, waitingTail - waitingHead);
+                waitingTail -= waitingHead;
+                waitingHead = 0;
+            } else {
+                waiting = Arrays.copyOf(waiting, waiting.length * 2);
+            }
+        }
+        waiting[waitingTail++] = slot;
+    }
+
+    // Puts the vehicle on the road at the next step, driving at its desired speed. Placing it
+    // where it overlaps another vehicle pushes it back behind that one.
+    public void place(LandVehicle v, int laneIndex, double positionKm) throws InvalidOperationException {
+        if (!(positionKm * 1000.0 >= start && positionKm * 1000.0 < end)) {
+            throw new InvalidOperationException("Position " + positionKm + " km is not on the stretch driven.");
+        }
+        int s = road.segmentAt(positionKm);
+        if (laneIndex < 0 || laneIndex >= road.getSegment(s).lanes()) {
+            throw new InvalidOperationException("Lane " + laneIndex + " does not exist at " + positionKm + " km.");
+        }
+        int slot = allocate(v);
+        position[slot] = positionKm * 1000.0;
+        lane[slot] = laneIndex;
+        segment[slot] = s;
+        speed[slot] = desiredSpeed(slot);
+        partitions[partitionAt(position[slot])].place(slot);
+        placedTotal++;
+    }
+
+    // Spreads the vehicles over the road the way the command line does, see layOutEvenly().
+    // Only vehicles within the stretch driven are taken, as well as the queue if the stretch
+    // starts the road, so every vehicle lands in exactly one stretch. Returns how many were
+    // taken.
+    public int placeEvenly(List<? extends LandVehicle> fleet) throws InvalidOperationException {
+        int[] taken = new int[1];
+        layOutEvenly(road, fleet, (v, l, x) -> {
+            if (l < 0) {
+                if (start > 0) return;
+                add(v);
+            } else {
+                if (!(x * 1000.0 >= start && x * 1000.0 < end)) return;
+                place(v, l, x);
+            }
+            taken[0]++;
+        });
+        return taken[0];
+    }
+
+    // Where a vehicle goes when the fleet is spread over the road: a lane and position to place
+    // it at, or lane -1 to queue at the start.
+    @FunctionalInterface
+    public interface Placement {
+        void accept(LandVehicle vehicle, int lane, double positionKm) throws InvalidOperationException;
+    }
+
+    // The k-th vehicle goes in lane k % lanes, evenly spaced but at least 20 m apart, from the
+    // start of the road. Those that fall outside the road or on a lane that does not exist there
+    // queue at the start. Vehicles that cannot drive are left out. Lets a coordinator lay out the
+    // whole fleet once and give each stretch just its own vehicles.
+    public static void layOutEvenly(Road road, List<? extends LandVehicle> fleet, Placement placement)
+            throws InvalidOperationException {
+        int laneCount = road.getMaxLanes();
+        int perLane = (fleet.size() + laneCount - 1) / laneCount;
+        double spacing = Math.max(road.getLengthKm() / Math.max(perLane, 1), 0.02);
+        for (int k = 0; k < fleet.size(); k++) {
+            LandVehicle v = fleet.get(k);
+            if (v instanceof FuelConsumable fc && fc.getFuelLevel() <= FUEL_RESERVE || !(v.getMaxSpeed() > 0)) continue;
+            int l = k % laneCount;
+            double x = (k / laneCount) * spacing;
+            boolean onRoad = x < road.getLengthKm() && l < road.getSegment(road.segmentAt(x)).lanes();
+            placement.accept(v, onRoad ? l : -1, onRoad ? x : 0.0);
+        }
+    }
+
+    // Takes over a vehicle handed on by the traffic on the stretch behind this one.
+    public void arrive(RoadHandoff handoff) throws InvalidOperationException {
+        double x = handoff.positionKm() * 1000.0;
+        if (!(x >= start && x < end)) {
+            throw new InvalidOperationException("Vehicle " + handoff.vehicle().getId() + " arrived at "
+                    + handoff.positionKm() + " km, outside the stretch driven.");
+        }
+        int s = road.segmentAt(handoff.positionKm());
+        if (handoff.lane() < 0 || handoff.lane() >= road.getSegment(s).lanes()) {
+            throw new InvalidOperationException("Vehicle " + handoff.vehicle().getId() + " arrived in lane "
+                    + handoff.lane() + ", which does not exist at " + handoff.positionKm() + " km.");
+        }
+        int slot = newSlot(handoff.vehicle());
+        position[slot] = x;
+        lane[slot] = handoff.lane();
+        segment[slot] = s;
+        speed[slot] = handoff.speed() / 3.6;
+        travelled[slot] = handoff.travelledKm() * 1000.0;
+        lastLaneChange[slot] = handoff.lastLaneChange();
+        stalled[slot] = handoff.stalled();
+        // Lane changers do not see it until it is merged into its lane, so until then it
+        // counts as the front vehicle behind the stretch.
+        if (x > upstreamFront[handoff.lane()]) {
+            upstreamFront[handoff.lane()] = x;
+            upstreamSpeed[handoff.lane()] = speed[slot];
+        }
+        partitions[partitionAt(x)].place(slot);
+        placedTotal++;
+    }
+
+    // The vehicles that have driven off the end of the stretch since the last call.
+    public List<RoadHandoff> takeDepartures() {
+        List<RoadHandoff> result = new ArrayList<>(departureCount);
+        for (int k = departureCount - 1; k >= 0; k--) {
+            int i = departures[k];
+            result.add(new RoadHandoff(vehicles[i], lane[i], position[i] / 1000.0, speed[i] * 3.6,
+                    travelled[i] / 1000.0, lastLaneChange[i], stalled[i]));
+            release(i);
+        }
+        departedTotal += departureCount;
+        departureCount = 0;
+        return result;
+    }
+
+    // Where the rear vehicle of the lane on the stretch ahead is, as of its last step: the
+    // position of its back in km (infinite if the lane is empty) and its speed in km/h.
+    // Vehicles that departed into that stretch during the last step are still taken into
+    // account until they show up in what it reports.
+    public void setDownstream(int laneIndex, double backKm, double speedKmh) {
+        double back = backKm * 1000.0;
+        double v = speedKmh / 3.6;
+        if (departedBack[laneIndex] < back) {
+            back = departedBack[laneIndex];
+            v = departedSpeed[laneIndex];
+        }
+        downstreamBack[laneIndex] = back;
+        downstreamSpeed[laneIndex] = v;
+    }
+
+    // Where the front vehicle of the lane on the stretch behind is, as of its last step: its
+    // position in km (negative infinity if the lane is empty) and its speed in km/h. Call it
+    // before the arrivals from that stretch are passed to arrive().
+    public void setUpstream(int laneIndex, double frontKm, double speedKmh) {
+        upstreamFront[laneIndex] = frontKm * 1000.0;
+        upstreamSpeed[laneIndex] = speedKmh / 3.6;
+    }
+
+    // The back of the rearmost vehicle in the lane, in km, or infinity if the lane is empty.
+    public double getRearBackKm(int laneIndex) {
+        for (Partition p : partitions) {
+            Lane ln = p.lanes[laneIndex];
+            if (ln.count > 0) return (position[ln.order[0]] - length[ln.order[0]]) / 1000.0;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    public double getRearSpeed(int laneIndex) {
+        for (Partition p : partitions) {
+            Lane ln = p.lanes[laneIndex];
+            if (ln.count > 0) return speed[ln.order[0]] * 3.6;
+        }
+        return 0.0;
+    }
+
+    // The front of the foremost vehicle in the lane, in km, or negative infinity if it is empty.
+    public double getFrontKm(int laneIndex) {
+        for (int q = partitions.length - 1; q >= 0; q--) {
+            Lane ln = partitions[q].lanes[laneIndex];
+            if (ln.count > 0) return position[ln.order[ln.count - 1]] / 1000.0;
+        }
+        return Double.NEGATIVE_INFINITY;
+    }
+
+    public double getFrontSpeed(int laneIndex) {
+        for (int q = partitions.length - 1; q >= 0; q--) {
+            Lane ln = partitions[q].lanes[laneIndex];
+            if (ln.count > 0) return speed[ln.order[ln.count - 1]] * 3.6;
+        }
+        return 0.0;
+    }
+
+    public void step() {
+        run(1);
+    }
+
+    public void run(long count) {
+        if (count <= 0) return;
+        if (closed) throw new IllegalStateException("Road traffic has been closed.");
+        if (workers == null) {
+            Partition p = partitions[0];
+            for (long s = steps; s < steps + count; s++) {
+                for (int ph = INTAKE; ph <= DRIVE; ph++) {
+                    runPhase(p, ph, s);
+                }
+            }
+        } else {
+            stepsToRun = count;
+            awaitGate();
+            awaitGate();
+        }
+        steps += count;
+        // Vehicles handed over in the last step, so that they are seen between runs.
+        for (Partition p : partitions) {
+            p.intake();
+        }
+        Throwable t = failure.getAndSet(null);
+        if (t instanceof RuntimeException e) throw e;
+        if (t instanceof Error e) throw e;
+    }
+
+    // Stops the workers; the traffic cannot be run afterwards.
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (workers != null) awaitGate();
+    }
+
+    private void awaitGate() {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+            gate.reset();
+            throw new IllegalStateException("Interrupted while waiting for the road partitions.", e);
+        } catch (BrokenBarrierException e) {
+            closed = true;
+            throw new IllegalStateException("Road partition workers stopped.", e);
+        }
+    }
+
+    private void work(Partition p) {
+        try {
+            while (true) {
+                gate.await();
+                if (closed) return;
+                long first = steps;
+                long last = first + stepsToRun;
+                for (long s = first; s < last; s++) {
+                    for (int ph = INTAKE; ph <= DRIVE; ph++) {
+                        runPhase(p, ph, s);
+                        long reached = System.nanoTime();
+                        phase.await();
+                        p.waitNanos += System.nanoTime() - reached;
+                    }
+                }
+                gate.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // The calling thread gave up on the run.
+        }
+    }
+
+    // A failing phase is recorded for run() to rethrow; later phases of the run are skipped,
+    // but every worker still meets every barrier.
+    private void runPhase(Partition p, int ph, long s) {
+        if (failure.get() != null) return;
+        long begin = System.nanoTime();
+        try {
+            switch (ph) {
+                case INTAKE -> p.intake();
+                case CHANGE_LANES -> p.changeLanes(s % 2 == 0 ? -1 : 1, s * stepSeconds);
+                case MERGE -> p.merge();
+                default -> p.drive();
+            }
+        } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
+        }
+        p.busyNanos += System.nanoTime() - begin;
+    }
+
+    // Moves the partition boundaries so that each partition holds about the same number of
+    // vehicles, none shorter than MIN_PARTITION_KM, and starts the partition loads afresh.
+    public void rebalance() {
+        int count = partitions.length;
+        if (count == 1) return;
+        int bins = (int) Math.ceil((end - start) / BALANCE_BIN);
+        int[] histogram = new int[bins];
+        int total = 0;
+        for (Partition p : partitions) {
+            for (Lane ln : p.lanes) {
+                for (int k = 0; k < ln.count; k++) {
+                    histogram[binOf(position[ln.order[k]] - start, bins)]++;
+                }
+                total += ln.count;
+            }
+            for (int k = 0; k < p.placedCount; k++) {
+                histogram[binOf(position[p.placed[k]] - start, bins)]++;
+            }
+            total += p.placedCount;
+        }
+        double minLength = MIN_PARTITION_KM * 1000.0;
+        int bin = 0;
+        long below = 0;
+        for (int p = 1; p < count; p++) {
+            long target = (long) total * p / count;
+            while (bin < bins && below + histogram[bin] <= target) {
+                below += histogram[bin++];
+            }
+            double bound = start + bin * BALANCE_BIN;
+            bound = Math.max(bound, bounds[p - 1] + minLength);
+            bound = Math.min(bound, end - (count - p) * minLength);
+            bounds[p] = bound;
+        }
+
+        // Lane by lane, the partitions' vehicles in order are one sorted run to split again.
+        for (int l = 0; l < road.getMaxLanes(); l++) {
+            int n = 0;
+            for (Partition p : partitions) {
+                n += p.lanes[l].count;
+            }
+            int[] all = new int[n];
+            n = 0;
+            for (Partition p : partitions) {
+                System.arraycopy(p.lanes[l].order, 0, all, n, p.lanes[l].count);
+                n += p.lanes[l].count;
+            }
+            int from = 0;
+            for (int p = 0; p < count; p++) {
+                int to = from;
+                while (to < n && (p == count - 1 || position[all[to]] < bounds[p + 1])) to++;
+                partitions[p].lanes[l].replace(all, from, to - from);
+                from = to;
+            }
+        }
+        List<Integer> placed = new ArrayList<>();
+        for (Partition p : partitions) {
+            for (int k = 0; k < p.placedCount; k++) {
+                placed.add(p.placed[k]);
+            }
+            p.placedCount = 0;
+        }
+        for (int slot : placed) {
+            partitions[partitionAt(position[slot])].place(slot);
+        }
+        for (Partition p : partitions) {
+            p.resetLoad();
+        }
+    }
+
+    private static int binOf(double metres, int bins) {
+        return Math.max(0, Math.min(bins - 1, (int) (metres / BALANCE_BIN)));
+    }
+
+    private int partitionAt(double metres) {
+        int p = 0;
+        while (p + 1 < partitions.length && metres >= bounds[p + 1]) p++;
+        return p;
+    }
+
+    private void makeMoves(int i, Partition p) {
+        int km = (int) (travelled[i] / 1000.0);
+        int made = vehicles[i].tryMoveSteps(1.0, km, FUEL_RESERVE);
+        travelled[i] -= made * 1000.0;
+        if (made < km) {
+            stalled[i] = true;
+            p.stalledVehicles++;
+        }
+    }
+
+    // The last part of a kilometre is made as one shorter move.
+    private void leave(int i) {
+        if (!stalled[i] && travelled[i] > 0) vehicles[i].tryMove(travelled[i] / 1000.0);
+        travelled[i] = 0.0;
+    }
+
+    // What vehicle i would do in lane l behind a vehicle whose back is at leaderBack, which is
+    // infinite on an open road.
+    private double laneAcceleration(int i, double leaderBack, double leaderSpeed, int l) {
+        double x = position[i];
+        double desired = desiredSpeed(i);
+        double a = followingAcceleration(i, leaderBack - x, leaderSpeed, desired);
+        double end = road.laneEnd(segment[i], l) - x;
+        if (end < LANE_END_LOOKAHEAD) a = Math.min(a, followingAcceleration(i, end, 0.0, desired));
+        return a;
+    }
+
+    // Whether vehicle i, moving into lane t, leaves room for the front vehicle of that lane on
+    // the stretch behind, wherever that vehicle has got to since it was reported.
+    private boolean clearOfUpstream(int i, int t) {
+        double v = upstreamSpeed[t];
+        double reach = v * stepSeconds + 0.5 * CAR_ACCELERATION * stepSeconds * stepSeconds;
+        double gap = position[i] - length[i] - (upstreamFront[t] + reach);
+        return gap >= MIN_GAP + HEADWAY * (v + CAR_ACCELERATION * stepSeconds);
+    }
+
+    // Called by the last partition for a vehicle that has driven off the end of the stretch.
+    private void depart(int i, int l) {
+        if (departureCount == departures.length) departures = Arrays.copyOf(departures, departureCount * 2);
+        departures[departureCount++] = i;
+        double back = position[i] - length[i];
+        departedBack[l] = back;
+        departedSpeed[l] = speed[i];
+        if (back < downstreamBack[l]) {
+            downstreamBack[l] = back;
+            downstreamSpeed[l] = speed[i];
+        }
+    }
+
+    private double followingAcceleration(int i, double gap, double leaderSpeed, double desired) {
+        double v = speed[i];
+        double a = maxAcceleration[i];
+        double ratio = v / desired;
+        double free = 1.0 - ratio * ratio * ratio * ratio;
+        if (gap == Double.POSITIVE_INFINITY) return Math.max(-MAX_BRAKING, a * free);
+        double wanted = MIN_GAP + Math.max(0.0, v * HEADWAY + v * (v - leaderSpeed) / (2 * Math.sqrt(a * COMFORTABLE_BRAKING)));
+        double interaction = wanted / Math.max(gap, CLEARANCE);
+        return Math.max(-MAX_BRAKING, a * (free - interaction * interaction));
+    }
+
+    private double desiredSpeed(int i) {
+        return Math.min(cruise[i], road.speedLimit(segment[i]));
+    }
+
+    private int allocate(LandVehicle v) throws InvalidOperationException {
+        if (v instanceof FuelConsumable fc && fc.getFuelLevel() <= FUEL_RESERVE) {
+            throw new InvalidOperationException("Vehicle " + v.getId() + " has no fuel to drive.");
+        }
+        if (!(v.getMaxSpeed() > 0)) {
+            throw new InvalidOperationException("Vehicle " + v.getId() + " cannot drive with a maximum speed of " + v.getMaxSpeed() + ".");
+        }
+        return newSlot(v);
+    }
+
+    private int newSlot(LandVehicle v) throws InvalidOperationException {
+        int i;
+        if (freeCount > 0) {
+            i = freeSlots[--freeCount];
+        } else {
+            if (slotCount == vehicles.length) grow(slotCount * 2);
+            i = slotCount++;
+        }
+        cruise[i] = 1000.0 / (v.estimateJourneyTime(1.0) * 3600.0);
+        vehicles[i] = v;
+        boolean heavy = v.getNumWheels() > 4;
+        length[i] = heavy ? HEAVY_LENGTH : CAR_LENGTH;
+        maxAcceleration[i] = heavy ? HEAVY_ACCELERATION : CAR_ACCELERATION;
+        lastLaneChange[i] = Double.NEGATIVE_INFINITY;
+        travelled[i] = 0.0;
+        stalled[i] = false;
+        return i;
+    }
+
+    // Only the last partition releases slots while running, and only the calling thread
+    // between runs.
+    private void release(int i) {
+        vehicles[i] = null;
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = i;
+    }
+
+    private void grow(int capacity) {
+        vehicles = Arrays.copyOf(vehicles, capacity);
+        position = Arrays.copyOf(position, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        cruise = Arrays.copyOf(cruise, capacity);
+        maxAcceleration = Arrays.copyOf(maxAcceleration, capacity);
+        length = Arrays.copyOf(length, capacity);
+        travelled = Arrays.copyOf(travelled, capacity);
+        lastLaneChange = Arrays.copyOf(lastLaneChange, capacity);
+        lane = Arrays.copyOf(lane, capacity);
+        segment = Arrays.copyOf(segment, capacity);
+        stalled = Arrays.copyOf(stalled, capacity);
+    }
+
+    public Road getRoad() { return road; }
+    public double getStepSeconds() { return stepSeconds; }
+    public long getSteps() { return steps; }
+    public double getSimulatedSeconds() { return steps * stepSeconds; }
+    public int getPartitionCount() { return partitions.length; }
+    public int getWaiting() { return waitingTail - waitingHead; }
+
+    public int getVehiclesOnRoad() {
+        int n = placedTotal - departedTotal - departureCount;
+        for (Partition p : partitions) {
+            n += p.entered - p.exited;
+        }
+        return n;
+    }
+
+    public int getExited() {
+        int n = 0;
+        for (Partition p : partitions) {
+            n += p.exited;
+        }
+        return n;
+    }
+
+    public int getStalled() {
+        int n = 0;
+        for (Partition p : partitions) {
+            n += p.stalledVehicles;
+        }
+        return n;
+    }
+
+    public long getLaneChanges() {
+        long n = 0;
+        for (Partition p : partitions) {
+            n += p.laneChanges;
+        }
+        return n;
+    }
+
+    public long getVehicleSteps() {
+        long n = 0;
+        for (Partition p : partitions) {
+            n += p.vehicleSteps;
+        }
+        return n;
+    }
+
+    public double getDistanceKm() {
+        double metres = 0.0;
+        for (Partition p : partitions) {
+            metres += p.distance;
+        }
+        return metres / 1000.0;
+    }
+
+    public int getVehiclesInLane(int laneIndex) {
+        int n = 0;
+        for (Partition p : partitions) {
+            n += p.lanes[laneIndex].count;
+        }
+        return n;
+    }
+
+    // Average over the vehicles on the road, in km/h.
+    public double getMeanSpeed() {
+        double sum = 0.0;
+        int n = 0;
+        for (Partition p : partitions) {
+            for (Lane ln : p.lanes) {
+                for (int k = 0; k < ln.count; k++) {
+                    sum += speed[ln.order[k]];
+                }
+                n += ln.count;
+            }
+        }
+        return n == 0 ? 0.0 : sum / n * 3.6;
+    }
+
+    // Lane by lane, rear first.
+    public List<RoadPosition> positions() {
+        List<RoadPosition> result = new ArrayList<>(getVehiclesOnRoad());
+        for (int l = 0; l < road.getMaxLanes(); l++) {
+            for (Partition p : partitions) {
+                Lane ln = p.lanes[l];
+                for (int k = 0; k < ln.count; k++) {
+                    int i = ln.order[k];
+                    result.add(new RoadPosition(vehicles[i], l, position[i] / 1000.0, speed[i] * 3.6));
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<PartitionLoad> getPartitionLoads() {
+        List<PartitionLoad> result = new ArrayList<>(partitions.length);
+        for (Partition p : partitions) {
+            int vehiclesNow = 0;
+            for (Lane ln : p.lanes) {
+                vehiclesNow += ln.count;
+            }
+            result.add(new PartitionLoad(p.index, bounds[p.index] / 1000.0, bounds[p.index + 1] / 1000.0, vehiclesNow,
+                    p.vehicleSteps - p.vehicleStepsBase, p.handedOff, p.busyNanos / 1e6, p.waitNanos / 1e6));
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 100_000;
+        double seconds = args.length > 1 && !args[1].startsWith("--") ? Double.parseDouble(args[1]) : 600;
+        int laneCount = 4;
+        double lengthKm = 1000;
+        double speedLimit = 130;
+        double dropKm = 0;
+        int partitionCount = 1;
+        boolean balance = false;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--lanes=")) laneCount = Integer.parseInt(arg.substring("--lanes=".length()));
+                else if (arg.startsWith("--length=")) lengthKm = Double.parseDouble(arg.substring("--length=".length()));
+                else if (arg.startsWith("--limit=")) speedLimit = Double.parseDouble(arg.substring("--limit=".length()));
+                else if (arg.startsWith("--drop=")) dropKm = Double.parseDouble(arg.substring("--drop=".length()));
+                else if (arg.startsWith("--partitions=")) partitionCount = Integer.parseInt(arg.substring("--partitions=".length()));
+                else if (arg.equals("--rebalance")) balance = true;
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: java road.RoadTraffic [vehicles] [seconds] [--lanes=N] [--length=KM] [--limit=KMH] [--drop=KM]"
+                    + " [--partitions=P] [--rebalance]");
+            return;
+        }
+        Road road = Road.corridor(lengthKm, laneCount, speedLimit, dropKm);
+
+        try (RoadTraffic traffic = new RoadTraffic(road, DEFAULT_STEP_SECONDS, partitionCount)) {
+            try {
+                List<LandVehicle> fleet = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    LandVehicle v = i % 5 == 1
+                            ? new Truck(String.format("T%07d", i), "Synthetic", 90, 6)
+                            : new Car(String.format("C%07d", i), "Synthetic", 100 + (i * 7) % 80, 4);
+                    ((FuelConsumable) v).refuel(1000);
+                    fleet.add(v);
+                }
+                traffic.placeEvenly(fleet);
+            } catch (InvalidOperationException e) {
+                System.out.println("Error preparing traffic: " + e.getMessage());
+                return;
+            }
+
+            CountingMovementSink counter = new CountingMovementSink();
+            Vehicle.setMovementSink(counter);
+            long steps = (long) Math.ceil(seconds / traffic.getStepSeconds());
+            // With --rebalance the boundaries are moved once a simulated minute.
+            long chunk = balance ? (long) Math.ceil(60 / traffic.getStepSeconds()) : steps;
+            long begin = System.nanoTime();
+            try {
+                for (long done = 0; done < steps; done += chunk) {
+                    traffic.run(Math.min(chunk, steps - done));
+                    if (balance && done + chunk < steps) traffic.rebalance();
+                }
+            } finally {
+                Vehicle.setMovementSink(Vehicle.CONSOLE_SINK);
+            }
+            double wall = (System.nanoTime() - begin) / 1e9;
+
+            System.out.printf("Simulated %d vehicles on %.0f km x %d lanes for %.0f s in %.3f s wall-clock (%.0f ns per vehicle step)%n",
+                    count, lengthKm, laneCount, traffic.getSimulatedSeconds(), wall, wall * 1e9 / Math.max(1, traffic.getVehicleSteps()));
+            System.out.printf("On road: %d, waiting: %d, exited: %d, stalled: %d, mean speed: %.1f km/h%n",
+                    traffic.getVehiclesOnRoad(), traffic.getWaiting(), traffic.getExited(), traffic.getStalled(), traffic.getMeanSpeed());
+            System.out.printf("Lane changes: %d, distance: %.0f km, moves reported: %d%n",
+                    traffic.getLaneChanges(), traffic.getDistanceKm(), counter.getMoveCount());
+            if (partitionCount > 1) {
+                System.out.println("Partition   from km     to km  vehicles  vehicle steps  handed off   busy ms   wait ms");
+                for (PartitionLoad load : traffic.getPartitionLoads()) {
+                    System.out.printf("%9d %9.1f %9.1f %9d %14d %11d %9.0f %9.0f%n", load.index(), load.startKm(), load.endKm(),
+                            load.vehicles(), load.vehicleSteps(), load.handedOff(), load.busyMillis(), load.waitMillis());
+                }
+            }
+        }
+    }
+
+    // One stretch of the road and the part of every lane within it. Only its own worker
+    // touches it during a phase, apart from the reads of its neighbours described at the top.
+    private final class Partition {
+        private final int index;
+        private final Lane[] lanes;
+        // Vehicles handed over by the partition behind; null for the first partition.
+        private final HandoffQueue inbox;
+        private int[] placed = new int[16];
+        private int placedCount;
+        // The back and speed of each lane's rear vehicle after merge(), read by the partitions
+        // behind while they drive; the back is infinite for an empty lane.
+        private final double[] rearBack;
+        private final double[] rearSpeed;
+        // The back and speed of the nearest vehicle in each lane ahead of this partition, and
+        // the nearest vehicle behind it, for changeLanes().
+        private final double[] aheadBack;
+        private final double[] aheadSpeed;
+        private final int[] behindOf;
+
+        private int entered;
+        private int exited;
+        private int stalledVehicles;
+        private long laneChanges;
+        private double distance;
+        private long vehicleSteps;
+        // Load since the last rebalance.
+        private long vehicleStepsBase;
+        private long handedOff;
+        private long busyNanos;
+        private long waitNanos;
+
+        Partition(int index, HandoffQueue inbox) {
+            this.index = index;
+            this.inbox = inbox;
+            int laneCount = road.getMaxLanes();
+            lanes = new Lane[laneCount];
+            for (int l = 0; l < laneCount; l++) {
+                lanes[l] = new Lane();
+            }
+            rearBack = new double[laneCount];
+            rearSpeed = new double[laneCount];
+            Arrays.fill(rearBack, Double.POSITIVE_INFINITY);
+            aheadBack = new double[laneCount];
+            aheadSpeed = new double[laneCount];
+            behindOf = new int[laneCount];
+        }
+
+        void place(int slot) {
+            if (placedCount == placed.length) placed = Arrays.copyOf(placed, placedCount * 2);
+            placed[placedCount++] = slot;
+        }
+
+        void resetLoad() {
+            vehicleStepsBase = vehicleSteps;
+            handedOff = 0;
+            busyNanos = 0;
+            waitNanos = 0;
+        }
+
+        // The partition behind hands vehicles over front first, lane by lane; they are all
+        // behind this partition's vehicles in their lane.
+        void intake() {
+            if (inbox == null) return;
+            int slot;
+            while ((slot = inbox.poll()) >= 0) {
+                lanes[lane[slot]].arrive(slot);
+            }
+            for (Lane ln : lanes) {
+                ln.prependIncoming();
+            }
+        }
+
+        // Every vehicle looks at the lane on one side, direction -1 or 1, and the ones that
+        // want to and safely can move there. Lanes are only read here: movers are collected in
+        // the target lane's incoming list and the rest in their own lane's staying list.
+        void changeLanes(int direction, double now) {
+            for (int l = 0; l < lanes.length; l++) {
+                aheadBack[l] = downstreamBack[l];
+                aheadSpeed[l] = downstreamSpeed[l];
+                for (int q = index + 1; q < partitions.length; q++) {
+                    Lane ln = partitions[q].lanes[l];
+                    if (ln.count > 0) {
+                        aheadBack[l] = position[ln.order[0]] - length[ln.order[0]];
+                        aheadSpeed[l] = speed[ln.order[0]];
+                        break;
+                    }
+                }
+                behindOf[l] = NONE;
+                for (int q = index - 1; q >= 0 && behindOf[l] == NONE; q--) {
+                    Lane ln = partitions[q].lanes[l];
+                    if (ln.count > 0) behindOf[l] = ln.order[ln.count - 1];
+                }
+            }
+            for (int l = 0; l < lanes.length; l++) {
+                Lane from = lanes[l];
+                int t = l + direction;
+                Lane to = t >= 0 && t < lanes.length ? lanes[t] : null;
+                int cursor = 0;
+                for (int k = 0; k < from.count; k++) {
+                    int i = from.order[k];
+                    if (to != null) {
+                        double x = position[i];
+                        while (cursor < to.count && position[to.order[cursor]] <= x) cursor++;
+                        double ownBack = aheadBack[l];
+                        double ownSpeed = aheadSpeed[l];
+                        if (k + 1 < from.count) {
+                            int ahead = from.order[k + 1];
+                            ownBack = position[ahead] - length[ahead];
+                            ownSpeed = speed[ahead];
+                        }
+                        double leaderBack = aheadBack[t];
+                        double leaderSpeed = aheadSpeed[t];
+                        if (cursor < to.count) {
+                            int leader = to.order[cursor];
+                            leaderBack = position[leader] - length[leader];
+                            leaderSpeed = speed[leader];
+                        }
+                        int follower = cursor > 0 ? to.order[cursor - 1] : behindOf[t];
+                        if (wantsToChange(i, l, ownBack, ownSpeed, t, leaderBack, leaderSpeed, follower, now)) {
+                            to.arrive(i);
+                            lane[i] = t;
+                            lastLaneChange[i] = now;
+                            laneChanges++;
+                            continue;
+                        }
+                    }
+                    from.stay(i);
+                }
+            }
+        }
+
+        // Whether vehicle i, in lane l behind a vehicle whose back is at aheadBack, should move
+        // in front of follower and behind a vehicle whose back is at leaderBack in lane t.
+        private boolean wantsToChange(int i, int l, double aheadBack, double aheadSpeed, int t,
+                                      double leaderBack, double leaderSpeed, int follower, double now) {
+            if (stalled[i]) return false;
+            int s = segment[i];
+            if (t >= road.getSegment(s).lanes()) return false;
+            double x = position[i];
+            boolean mustMerge = road.laneEnd(s, l) - x < MERGE_ZONE;
+            if (mustMerge && t > l) return false;
+            if (t > l && road.laneEnd(s, t) - x < MERGE_ZONE) return false;
+            if (!mustMerge && now - lastLaneChange[i] < LANE_CHANGE_COOLDOWN) return false;
+
+            if (leaderBack - x < MIN_GAP) return false;
+            if (follower == NONE) {
+                if (!clearOfUpstream(i, t)) return false;
+            } else {
+                double gap = x - length[i] - position[follower];
+                if (gap < MIN_GAP) return false;
+                if (!stalled[follower]
+                        && followingAcceleration(follower, gap, speed[i], desiredSpeed(follower)) < -SAFE_BRAKING) {
+                    return false;
+                }
+            }
+            if (mustMerge) return true;
+            double gain = laneAcceleration(i, leaderBack, leaderSpeed, t) - laneAcceleration(i, aheadBack, aheadSpeed, l);
+            return t < l ? gain > -KEEP_RIGHT_BIAS : gain > OVERTAKE_GAIN;
+        }
+
+        void merge() {
+            for (int k = 0; k < placedCount; k++) {
+                lanes[lane[placed[k]]].arrive(placed[k]);
+            }
+            placedCount = 0;
+            for (int l = 0; l < lanes.length; l++) {
+                Lane ln = lanes[l];
+                ln.sortIncoming(position);
+                if (index == 0 && l < road.getSegment(0).lanes()) enter(ln, l);
+                ln.merge(position);
+                if (ln.count > 0) {
+                    int rear = ln.order[0];
+                    rearBack[l] = position[rear] - length[rear];
+                    rearSpeed[l] = speed[rear];
+                } else {
+                    rearBack[l] = Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+
+        // Lets the first waiting vehicle into the lane when the vehicle nearest the start is
+        // far enough along for it to enter at that vehicle's speed.
+        private void enter(Lane into, int l) {
+            if (waitingHead == waitingTail) return;
+            int slot = waiting[waitingHead];
+            int rear = into.rear(position);
+            double entrySpeed = desiredSpeed(slot);
+            if (rear != NONE && position[rear] - length[rear] < ENTRY_LOOKAHEAD) {
+                entrySpeed = Math.min(entrySpeed, speed[rear]);
+                if (position[rear] - length[rear] < MIN_GAP + HEADWAY * entrySpeed) return;
+            }
+            waitingHead++;
+            position[slot] = 0.0;
+            speed[slot] = entrySpeed;
+            lane[slot] = l;
+            segment[slot] = 0;
+            into.entrant = slot;
+            entered++;
+        }
+
+        // Vehicles move rear first, so each one sees the vehicle ahead where it was at the
+        // start of the drive, and is kept behind that position and short of its lane's end.
+        // Those that have passed the end of the partition are handed to the next one, or leave
+        // the road or depart the stretch.
+        void drive() {
+            boolean roadEnds = end == road.length();
+            int lastSegment = road.getSegmentCount() - 1;
+            boolean last = index == partitions.length - 1;
+            for (int l = 0; l < lanes.length; l++) {
+                Lane ln = lanes[l];
+                int[] order = ln.order;
+                int n = ln.count;
+                double ghostBack = downstreamBack[l];
+                double ghostSpeed = downstreamSpeed[l];
+                for (int q = index + 1; q < partitions.length; q++) {
+                    if (partitions[q].rearBack[l] != Double.POSITIVE_INFINITY) {
+                        ghostBack = partitions[q].rearBack[l];
+                        ghostSpeed = partitions[q].rearSpeed[l];
+                        break;
+                    }
+                }
+                for (int k = 0; k < n; k++) {
+                    int i = order[k];
+                    double leaderBack = ghostBack;
+                    double leaderSpeed = ghostSpeed;
+                    if (k + 1 < n) {
+                        int leader = order[k + 1];
+                        leaderBack = position[leader] - length[leader];
+                        leaderSpeed = speed[leader];
+                    }
+                    double v = speed[i];
+                    double a = stalled[i]
+                            ? (v > 0 ? -COMFORTABLE_BRAKING : 0.0)
+                            : laneAcceleration(i, leaderBack, leaderSpeed, l);
+                    double next = v + a * stepSeconds;
+                    double moved;
+                    if (next > 0) {
+                        moved = (v + next) * 0.5 * stepSeconds;
+                    } else {
+                        moved = a < 0 ? v * v / (-2 * a) : 0.0;
+                        next = 0.0;
+                    }
+                    double x = position[i] + moved;
+                    double limit = road.laneEnd(segment[i], l) - CLEARANCE;
+                    double limitSpeed = 0.0;
+                    if (leaderBack - CLEARANCE < limit) {
+                        limit = leaderBack - CLEARANCE;
+                        limitSpeed = leaderSpeed;
+                    }
+                    if (x > limit) {
+                        x = limit;
+                        next = Math.min(next, limitSpeed);
+                    }
+                    if (x > position[i]) {
+                        travelled[i] += x - position[i];
+                        distance += x - position[i];
+                    }
+                    position[i] = x;
+                    speed[i] = next;
+                    while (segment[i] < lastSegment && x >= road.end(segment[i])) segment[i]++;
+                    if (travelled[i] >= 1000.0 && !stalled[i]) makeMoves(i, this);
+                }
+                vehicleSteps += n;
+                // Vehicles past the end are at the front of the lane. One the next partition
+                // has no room for stays here, still in order, and is handed over next step.
+                if (last) {
+                    departedBack[l] = Double.POSITIVE_INFINITY;
+                    while (ln.count > 0 && position[order[ln.count - 1]] >= end) {
+                        int i = order[--ln.count];
+                        if (roadEnds) {
+                            leave(i);
+                            release(i);
+                            exited++;
+                        } else {
+                            depart(i, l);
+                        }
+                    }
+                } else {
+                    HandoffQueue outbox = partitions[index + 1].inbox;
+                    while (ln.count > 0 && position[order[ln.count - 1]] >= bounds[index + 1]
+                            && outbox.offer(order[ln.count - 1])) {
+                        ln.count--;
+                        handedOff++;
+                    }
+                }
+            }
+        }
+    }
+
+    // The slots in one lane of a partition, rear first. During a step, vehicles keeping the
+    // lane collect in staying and those joining it in incoming, both rear first; merge() makes
+    // them the lane.
+    private static final class Lane {
+        private int[] order = new int[16];
+        private int count;
+        private int[] staying = new int[16];
+        private int stayingCount;
+        private int[] incoming = new int[16];
+        private int incomingCount;
+        // A vehicle entering at the start of the road, behind everyone else, or NONE.
+        private int entrant = NONE;
+
+        void stay(int slot) {
+            if (stayingCount == staying.length) staying = Arrays.copyOf(staying, stayingCount * 2);
+            staying[stayingCount++] = slot;
+        }
+
+        void arrive(int slot) {
+            if (incomingCount == incoming.length) incoming = Arrays.copyOf(incoming, incomingCount * 2);
+            incoming[incomingCount++] = slot;
+        }
+
+        void replace(int[] slots, int from, int n) {
+            order = Arrays.copyOfRange(slots, from, from + Math.max(n, 16));
+            count = n;
+        }
+
+        // Insertion sort: lane changers arrive in order, so only placed vehicles move.
+        void sortIncoming(double[] position) {
+            for (int k = 1; k < incomingCount; k++) {
+                int slot = incoming[k];
+                double x = position[slot];
+                int j = k - 1;
+                while (j >= 0 && position[incoming[j]] > x) {
+                    incoming[j + 1] = incoming[j];
+                    j--;
+                }
+                incoming[j + 1] = slot;
+            }
+        }
+
+        // Puts the incoming vehicles, which arrived front first, behind the lane's vehicles.
+        void prependIncoming() {
+            if (incomingCount == 0) return;
+            int total = incomingCount + count;
+            if (staying.length < total) staying = new int[Math.max(total, staying.length * 2)];
+            int n = 0;
+            for (int k = incomingCount - 1; k >= 0; k--) {
+                staying[n++] = incoming[k];
+            }
+            System.arraycopy(order, 0, staying, n, count);
+            int[] swap = order;
+            order = staying;
+            staying = swap;
+            count = total;
+            incomingCount = 0;
+        }
+
+        // The rearmost vehicle after the coming merge.
+        int rear(double[] position) {
+            if (stayingCount == 0) return incomingCount == 0 ? NONE : incoming[0];
+            if (incomingCount == 0) return staying[0];
+            return position[incoming[0]] < position[staying[0]] ? incoming[0] : staying[0];
+        }
+
+        void merge(double[] position) {
+            int total = stayingCount + incomingCount + (entrant != NONE ? 1 : 0);
+            int[] merged = order.length >= total ? order : new int[Math.max(total, order.length * 2)];
+            int n = 0;
+            if (entrant != NONE) merged[n++] = entrant;
+            int a = 0;
+            int b = 0;
+            while (a < stayingCount && b < incomingCount) {
+                merged[n++] = position[incoming[b]] < position[staying[a]] ? incoming[b++] : staying[a++];
+            }
+            while (a < stayingCount) merged[n++] = staying[a++];
+            while (b < incomingCount) merged[n++] = incoming[b++];
+            order = merged;
+            count = n;
+            stayingCount = 0;
+            incomingCount = 0;
+            entrant = NONE;
+        }
+    }
+}
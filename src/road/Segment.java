@@ -0,0 +1,12 @@
+package road;
+
+// One stretch of a Road with its own lane count and speed limit (km/h). Lanes are numbered
+// from 0, the slow lane; a segment with fewer lanes than the one before it drops the
+// highest-numbered ones.
+public record Segment(double lengthKm, int lanes, double speedLimit) {
+    public Segment {
+        if (!(lengthKm > 0)) throw new IllegalArgumentException("Segment length must be positive.");
+        if (lanes <= 0) throw new IllegalArgumentException("A segment needs at least one lane.");
+        if (!(speedLimit > 0)) throw new IllegalArgumentException("Speed limit must be positive.");
+    }
+}
@@ -0,0 +1,65 @@
+package simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Times one increment in 64 so the statistics panel can show the live cost of each
+// strategy without putting two nanoTime calls on every increment.
+public abstract class AbstractHighwayCounter implements HighwayCounter {
+    private static final int SAMPLE_MASK = 63;
+
+    private final String name;
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+
+    protected AbstractHighwayCounter(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public final void increment() {
+        if ((ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) != 0) {
+            doIncrement();
+            return;
+        }
+        long begin = System.nanoTime();
+        doIncrement();
+        sampledNanos.add(System.nanoTime() - begin);
+        samples.increment();
+    }
+
+    @Override
+    public final void add(long delta) {
+        if (delta == 1) {
+            increment();
+            return;
+        }
+        if ((ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) != 0) {
+            doAdd(delta);
+            return;
+        }
+        long begin = System.nanoTime();
+        doAdd(delta);
+        sampledNanos.add(System.nanoTime() - begin);
+        samples.increment();
+    }
+
+    protected abstract void doIncrement();
+
+    protected abstract void doAdd(long delta);
+
+    @Override
+    public void reset() {
+        sampledNanos.reset();
+        samples.reset();
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public double getAverageIncrementNanos() {
+        long count = samples.sum();
+        return count == 0 ? 0.0 : (double) sampledNanos.sum() / count;
+    }
+}
@@ -0,0 +1,34 @@
+package simulator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdderCounter extends AbstractHighwayCounter {
+    private final LongAdder value = new LongAdder();
+
+    public AdderCounter() {
+        super("LongAdder");
+    }
+
+    @Override
+    protected void doIncrement() {
+        value.increment();
+    }
+
+    @Override
+    protected void doAdd(long delta) {
+        value.add(delta);
+    }
+
+    @Override
+    public long sum() { return value.sum(); }
+
+    @Override
+    public void reset() {
+        super.reset();
+        value.reset();
+    }
+
+    // LongAdder hides its cell collisions; the sampled increment cost shows them instead.
+    @Override
+    public long getContentionCount() { return 0; }
+}
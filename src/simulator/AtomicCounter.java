@@ -0,0 +1,40 @@
+package simulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AtomicCounter extends AbstractHighwayCounter {
+    private final AtomicLong value = new AtomicLong();
+    private final LongAdder failedCas = new LongAdder();
+
+    public AtomicCounter() {
+        super("AtomicLong");
+    }
+
+    @Override
+    protected void doIncrement() {
+        doAdd(1);
+    }
+
+    @Override
+    protected void doAdd(long delta) {
+        long current = value.get();
+        while (!value.compareAndSet(current, current + delta)) {
+            failedCas.increment();
+            current = value.get();
+        }
+    }
+
+    @Override
+    public long sum() { return value.get(); }
+
+    @Override
+    public void reset() {
+        super.reset();
+        failedCas.reset();
+        value.set(0);
+    }
+
+    @Override
+    public long getContentionCount() { return failedCas.sum(); }
+}
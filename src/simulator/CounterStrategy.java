@@ -0,0 +1,37 @@
+package simulator;
+
+import java.util.function.Supplier;
+
+public enum CounterStrategy {
+    UNSYNCHRONIZED("Unsynchronized (race condition)", UnsynchronizedCounter::new),
+    LOCK("ReentrantLock", LockCounter::new),
+    ATOMIC("AtomicLong (CAS)", AtomicCounter::new),
+    ADDER("LongAdder", AdderCounter::new),
+    STRIPED("Thread-hashed striped cells", StripedCounter::new);
+
+    private final String label;
+    private final Supplier<HighwayCounter> factory;
+
+    CounterStrategy(String label, Supplier<HighwayCounter> factory) {
+        this.label = label;
+        this.factory = factory;
+    }
+
+    public HighwayCounter create() {
+        return factory.get();
+    }
+
+    // As create(), with the unsynchronized counter's 1 ms race window running on the clock.
+    public HighwayCounter create(SimulationClock clock) {
+        return this == UNSYNCHRONIZED ? new UnsynchronizedCounter(clock.toWallNanos(1)) : create();
+    }
+
+    public boolean isExact() {
+        return this != UNSYNCHRONIZED;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,73 @@
+package simulator;
+
+import java.util.Arrays;
+
+// Binary min-heap of (tick, vehicle index) pairs kept in primitive arrays so that
+// millions of pending events cost no per-event objects. Ties on tick are broken by
+// vehicle index, which keeps the processing order deterministic.
+class EventQueue {
+    private long[] ticks;
+    private int[] vehicles;
+    private int size;
+
+    EventQueue(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ticks = new long[capacity];
+        vehicles = new int[capacity];
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+    void clear() { size = 0; }
+
+    long peekTick() {
+        return ticks[0];
+    }
+
+    void add(long tick, int vehicle) {
+        if (size == ticks.length) {
+            int capacity = ticks.length * 2;
+            ticks = Arrays.copyOf(ticks, capacity);
+            vehicles = Arrays.copyOf(vehicles, capacity);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(tick, vehicle, ticks[parent], vehicles[parent])) break;
+            ticks[i] = ticks[parent];
+            vehicles[i] = vehicles[parent];
+            i = parent;
+        }
+        ticks[i] = tick;
+        vehicles[i] = vehicle;
+    }
+
+    int poll() {
+        int head = vehicles[0];
+        size--;
+        if (size > 0) {
+            long tick = ticks[size];
+            int vehicle = vehicles[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && less(ticks[right], vehicles[right], ticks[child], vehicles[child])) {
+                    child = right;
+                }
+                if (!less(ticks[child], vehicles[child], tick, vehicle)) break;
+                ticks[i] = ticks[child];
+                vehicles[i] = vehicles[child];
+                i = child;
+            }
+            ticks[i] = tick;
+            vehicles[i] = vehicle;
+        }
+        return head;
+    }
+
+    private static boolean less(long tickA, int vehicleA, long tickB, int vehicleB) {
+        return tickA < tickB || (tickA == tickB && vehicleA < vehicleB);
+    }
+}
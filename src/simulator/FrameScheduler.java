@@ -0,0 +1,138 @@
+package simulator;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.SwingUtilities;
+
+// Carries changes from simulation threads to the event dispatch thread at most once per frame.
+// Any thread can post() a table row without waiting: the row is flagged with a CAS and queued
+// unless it is queued already, so any number of changes to one vehicle between two frames cost
+// one row update. A frame thread wakes targetFps times a second and hands everything queued to
+// the EDT in a single invokeLater. A frame that comes due while the EDT is still applying the
+// previous one is dropped, and its rows go out with the next frame; the EDT never has more than
+// one frame waiting, however fast the simulation runs.
+final class FrameScheduler {
+    static final int DEFAULT_FPS = 30;
+
+    // Applies one frame on the EDT: the rows changed since the last frame, in ascending order.
+    interface FrameHandler {
+        void applyFrame(int[] rows, int count);
+    }
+
+    private final int targetFps;
+    private volatile Rows rows = new Rows(0);
+    private final AtomicBoolean frameInFlight = new AtomicBoolean();
+    private final LongAdder posted = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder droppedUpdates = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private ScheduledExecutorService timer;
+    private int[] batch = new int[64];
+
+    FrameScheduler(int targetFps) {
+        if (targetFps <= 0) throw new IllegalArgumentException("Target FPS must be positive.");
+        this.targetFps = targetFps;
+    }
+
+    int getTargetFps() {
+        return targetFps;
+    }
+
+    // Starts a new table of rowCount rows; updates still queued for the old rows are dropped.
+    void reset(int rowCount) {
+        rows = new Rows(rowCount);
+    }
+
+    // Never blocks; safe from any thread.
+    void post(int row) {
+        posted.increment();
+        Rows current = rows;
+        if (row < 0 || row >= current.length()) {
+            droppedUpdates.increment();
+        } else if (current.pending.get(row) != 0 || !current.pending.compareAndSet(row, 0, 1)) {
+            merged.increment();
+        } else {
+            current.queue.add(row);
+        }
+    }
+
+    synchronized void start(FrameHandler handler) {
+        if (timer != null) return;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "FrameScheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodNanos = 1_000_000_000L / targetFps;
+        timer.scheduleAtFixedRate(() -> tick(handler), periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    synchronized void stop() {
+        if (timer == null) return;
+        timer.shutdownNow();
+        timer = null;
+    }
+
+    long getPostedUpdates() { return posted.sum(); }
+    long getMergedUpdates() { return merged.sum(); }
+    long getDroppedUpdates() { return droppedUpdates.sum(); }
+    long getFrames() { return frames.sum(); }
+    long getDroppedFrames() { return droppedFrames.sum(); }
+
+    private void tick(FrameHandler handler) {
+        if (!frameInFlight.compareAndSet(false, true)) {
+            droppedFrames.increment();
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            try {
+                int count = drain();
+                handler.applyFrame(batch, count);
+                frames.increment();
+            } finally {
+                frameInFlight.set(false);
+            }
+        });
+    }
+
+    // Runs on the EDT. The flag is cleared before the row is read, so a change made meanwhile
+    // queues the row again; a row queued again during the drain is applied only once. Taking no
+    // more entries than there are rows keeps a fast simulation from holding the EDT here.
+    private int drain() {
+        Rows current = rows;
+        int count = 0;
+        Integer row;
+        while (count < current.length() && (row = current.queue.poll()) != null) {
+            current.pending.set(row, 0);
+            if (count == batch.length) batch = Arrays.copyOf(batch, count * 2);
+            batch[count++] = row;
+        }
+        Arrays.sort(batch, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || batch[i] != batch[unique - 1]) batch[unique++] = batch[i];
+        }
+        return unique;
+    }
+
+    private static final class Rows {
+        private final AtomicIntegerArray pending;
+        private final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+        Rows(int length) {
+            pending = new AtomicIntegerArray(length);
+        }
+
+        int length() {
+            return pending.length();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package simulator;
+
+public interface HighwayCounter {
+    void increment();
+    // Same total as delta increments, made as one update.
+    void add(long delta);
+    long sum();
+    void reset();
+    String getName();
+    long getContentionCount();
+    double getAverageIncrementNanos();
+}
@@ -1,43 +1,55 @@
 package simulator;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Scanner;
-import java.util.concurrent.locks.ReentrantLock;
 import vehicle.*;
 import fleet.FleetManager;
-import exception.*;
+import metrics.Metrics;
 
 public class HighwaySimulatorGUI extends JFrame {
-    private static int highwayDistanceUnsync = 0;
-    private static int highwayDistanceSync = 0;
-    private static int expectedDistance = 0;
-    private static final ReentrantLock lock = new ReentrantLock();
-    
     private JTable vehicleTable;
-    private DefaultTableModel tableModel;
+    private VehicleTableModel tableModel;
     private JLabel highwayCounterLabel;
     private JLabel expectedLabel;
     private JLabel dataLossLabel;
+    private JLabel contentionLabel;
+    private JLabel frameLabel;
+    private JLabel clockLabel;
     private JButton startButton, pauseButton, resumeButton, stopButton;
-    private JCheckBox syncCheckBox;
+    private JComboBox<CounterStrategy> counterSelector;
     
     private FleetManager fleetManager;
-    private List<VehicleThread> vehicleThreads;
+    private final SimulationMode mode;
+    private final FrameScheduler frames;
+    private final SimulationClock clock;
+    private int maxStepKm = 1;
+    private Simulation simulation;
     private boolean isRunning = false;
-    private boolean useSynchronization = false;
+    private CounterStrategy counterStrategy = CounterStrategy.UNSYNCHRONIZED;
     
     public HighwaySimulatorGUI() {
-        setTitle("Fleet Highway Simulator - Race Condition Demo");
+        this(SimulationMode.ENGINE);
+    }
+
+    public HighwaySimulatorGUI(SimulationMode mode) {
+        this(mode, FrameScheduler.DEFAULT_FPS);
+    }
+
+    public HighwaySimulatorGUI(SimulationMode mode, int targetFps) {
+        this(mode, targetFps, SimulationClock.realTime());
+    }
+
+    public HighwaySimulatorGUI(SimulationMode mode, int targetFps, SimulationClock clock) {
+        this.mode = mode;
+        this.frames = new FrameScheduler(targetFps);
+        this.clock = clock;
+        setTitle("Fleet Highway Simulator - " + mode.getLabel());
         setSize(900, 600);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
         
         fleetManager = new FleetManager();
-        vehicleThreads = new ArrayList<>();
         
         initializeComponents();
         createSampleFleet();
@@ -61,13 +73,7 @@ public class HighwaySimulatorGUI extends JFrame {
         JPanel centerPanel = new JPanel(new BorderLayout(5, 5));
         centerPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
-        String[] columnNames = {"Vehicle ID", "Type", "Model", "Mileage (km)", "Fuel (L)", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new VehicleTableModel(frames);
         
         vehicleTable = new JTable(tableModel);
         vehicleTable.setFont(new Font("Monospaced", Font.PLAIN, 13));
@@ -101,12 +107,33 @@ public class HighwaySimulatorGUI extends JFrame {
         dataLossLabel.setForeground(Color.RED);
         dataLossLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
         
+        clockLabel = new JLabel("Simulated Time: 00:00:00 (" + clock + ")");
+        clockLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        clockLabel.setForeground(new Color(80, 80, 80));
+        clockLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        
+        counterPanel.add(clockLabel);
+        counterPanel.add(Box.createVerticalStrut(8));
         counterPanel.add(highwayCounterLabel);
         counterPanel.add(Box.createVerticalStrut(8));
         counterPanel.add(expectedLabel);
         counterPanel.add(Box.createVerticalStrut(8));
         counterPanel.add(dataLossLabel);
         
+        contentionLabel = new JLabel("Counter: -");
+        contentionLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+        contentionLabel.setForeground(new Color(80, 80, 80));
+        contentionLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        counterPanel.add(Box.createVerticalStrut(8));
+        counterPanel.add(contentionLabel);
+        
+        frameLabel = new JLabel("Frames: -");
+        frameLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+        frameLabel.setForeground(new Color(80, 80, 80));
+        frameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        counterPanel.add(Box.createVerticalStrut(8));
+        counterPanel.add(frameLabel);
+        
         centerPanel.add(counterPanel, BorderLayout.SOUTH);
         add(centerPanel, BorderLayout.CENTER);
         
@@ -118,16 +145,20 @@ public class HighwaySimulatorGUI extends JFrame {
         JPanel syncPanel = new JPanel();
         syncPanel.setLayout(new BoxLayout(syncPanel, BoxLayout.Y_AXIS));
         syncPanel.setBackground(new Color(245, 245, 245));
-        syncPanel.setBorder(BorderFactory.createTitledBorder("Synchronization Mode"));
-        
-        syncCheckBox = new JCheckBox("Use Synchronization");
-        syncCheckBox.setFont(new Font("Arial", Font.BOLD, 13));
-        syncCheckBox.setBackground(new Color(245, 245, 245));
-        syncCheckBox.addActionListener(e -> {
-            useSynchronization = syncCheckBox.isSelected();
-            if (syncCheckBox.isSelected()) {
+        syncPanel.setBorder(BorderFactory.createTitledBorder("Highway Counter"));
+        
+        counterSelector = new JComboBox<>(CounterStrategy.values());
+        counterSelector.setSelectedItem(counterStrategy);
+        counterSelector.setFont(new Font("Arial", Font.BOLD, 12));
+        counterSelector.setMaximumSize(new Dimension(220, 30));
+        counterSelector.setAlignmentX(Component.LEFT_ALIGNMENT);
+        counterSelector.addActionListener(e -> {
+            CounterStrategy selected = (CounterStrategy) counterSelector.getSelectedItem();
+            if (selected == null || selected == counterStrategy) return;
+            counterStrategy = selected;
+            if (selected.isExact()) {
                 JOptionPane.showMessageDialog(this, 
-                    "Synchronization ENABLED\nRace condition will be FIXED",
+                    "Counter: " + selected + "\nRace condition will be FIXED",
                     "Mode Changed", JOptionPane.INFORMATION_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(this, 
@@ -136,10 +167,14 @@ public class HighwaySimulatorGUI extends JFrame {
             }
         });
         
-        JLabel syncInfo = new JLabel("<html><i>Toggle to see race condition</i></html>");
+        JLabel syncInfo = new JLabel("<html><i>Pick a counter before starting</i></html>");
         syncInfo.setFont(new Font("Arial", Font.PLAIN, 11));
+        if (mode == SimulationMode.ENGINE) {
+            counterSelector.setEnabled(false);
+            syncInfo.setText("<html><i>Engine runs on one thread;<br>counters are always exact</i></html>");
+        }
         
-        syncPanel.add(syncCheckBox);
+        syncPanel.add(counterSelector);
         syncPanel.add(Box.createVerticalStrut(5));
         syncPanel.add(syncInfo);
         
@@ -211,7 +246,7 @@ public class HighwaySimulatorGUI extends JFrame {
             fleetManager.addVehicle(truck);
             fleetManager.addVehicle(bus);
             
-            updateVehicleTable();
+            tableModel.setFleet(fleetManager.getFleet());
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, 
                 "Error creating sample fleet: " + e.getMessage(),
@@ -220,37 +255,7 @@ public class HighwaySimulatorGUI extends JFrame {
     }
     
     private void updateVehicleTable() {
-        tableModel.setRowCount(0);
-        for (Vehicle v : fleetManager.getFleet()) {
-            String fuelLevel = "N/A";
-            if (v instanceof interfaces.FuelConsumable) {
-                fuelLevel = String.format("%.2f", ((interfaces.FuelConsumable) v).getFuelLevel());
-            }
-            
-            String status = "Ready";
-            VehicleThread vt = findThreadForVehicle(v.getId());
-            if (vt != null) {
-                status = vt.getStatus();
-            }
-            
-            tableModel.addRow(new Object[]{
-                v.getId(),
-                v.getClass().getSimpleName(),
-                v.getModel(),
-                String.format("%.2f", v.getCurrentMileage()),
-                fuelLevel,
-                status
-            });
-        }
-    }
-    
-    private VehicleThread findThreadForVehicle(String id) {
-        for (VehicleThread vt : vehicleThreads) {
-            if (vt.vehicle.getId().equals(id)) {
-                return vt;
-            }
-        }
-        return null;
+        tableModel.refresh();
     }
     
     private void startSimulation() {
@@ -261,80 +266,76 @@ public class HighwaySimulatorGUI extends JFrame {
             return;
         }
         
-        highwayDistanceUnsync = 0;
-        highwayDistanceSync = 0;
-        expectedDistance = 0;
-        
         isRunning = true;
         
-        vehicleThreads.clear();
-        for (Vehicle v : fleetManager.getFleet()) {
-            VehicleThread thread = new VehicleThread(v);
-            vehicleThreads.add(thread);
-            thread.start();
+        if (mode == SimulationMode.ENGINE) {
+            simulation = new SimulationEngine(fleetManager.getFleet(), clock);
+        } else {
+            simulation = new ThreadedSimulation(fleetManager.getFleet(), counterStrategy.create(clock),
+                    mode == SimulationMode.VIRTUAL_THREADS, clock);
+            counterSelector.setEnabled(false);
+        }
+        if (simulation instanceof ThreadedSimulation threaded) {
+            threaded.setMaxStepKm(maxStepKm);
+        } else if (simulation instanceof SimulationEngine engine) {
+            engine.setMaxStepKm(maxStepKm);
         }
+        simulation.start();
+        tableModel.setSimulation(simulation);
         
-        javax.swing.Timer updateTimer = new javax.swing.Timer(200, e -> {
-            if (!isRunning) {
-                ((javax.swing.Timer)e.getSource()).stop();
-                return;
-            }
-            updateVehicleTable();
+        frames.start((rows, count) -> {
+            if (!isRunning) return;
+            tableModel.applyRows(rows, count);
             updateCounterDisplay();
         });
-        updateTimer.start();
         
         startButton.setEnabled(false);
         pauseButton.setEnabled(true);
         stopButton.setEnabled(true);
         
-        String mode = useSynchronization ? "SYNCHRONIZED (No Race Condition)" : "UNSYNCHRONIZED (Race Condition Active!)";
+        String modeText;
+        if (mode == SimulationMode.ENGINE) {
+            modeText = "DISCRETE-EVENT ENGINE (Single Thread, Exact Counters)";
+        } else {
+            modeText = counterStrategy.isExact()
+                ? "SYNCHRONIZED with " + counterStrategy + " (No Race Condition)"
+                : "UNSYNCHRONIZED (Race Condition Active!)";
+        }
         JOptionPane.showMessageDialog(this, 
-            "Simulation Started!\n\nMode: " + mode + "\n\nWatch the Data Loss counter!",
+            "Simulation Started!\n\nMode: " + modeText + "\n\nWatch the Data Loss counter!",
             "Simulation Started", JOptionPane.INFORMATION_MESSAGE);
     }
     
     private void pauseSimulation() {
-        for (VehicleThread vt : vehicleThreads) {
-            vt.pauseVehicle();
-        }
+        simulation.pause();
+        updateVehicleTable();
         pauseButton.setEnabled(false);
         resumeButton.setEnabled(true);
     }
     
     private void resumeSimulation() {
-        for (VehicleThread vt : vehicleThreads) {
-            vt.resumeVehicle();
-        }
+        simulation.resume();
+        updateVehicleTable();
         pauseButton.setEnabled(true);
         resumeButton.setEnabled(false);
     }
     
     private void stopSimulation() {
         isRunning = false;
-        for (VehicleThread vt : vehicleThreads) {
-            vt.stopVehicle();
-        }
-        
-        for (VehicleThread vt : vehicleThreads) {
-            try {
-                vt.join(2000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        
-        vehicleThreads.clear();
-        
+        frames.stop();
+        simulation.stop();
+        long expectedDistance = simulation.getExpectedDistance();
+        long currentCounter = simulation.getHighwayDistance();
+        simulation = null;
+        tableModel.setSimulation(null);
+        
+        counterSelector.setEnabled(mode != SimulationMode.ENGINE);
         startButton.setEnabled(true);
         pauseButton.setEnabled(false);
         resumeButton.setEnabled(false);
         stopButton.setEnabled(false);
         
-        updateVehicleTable();
-        
-        int currentCounter = useSynchronization ? highwayDistanceSync : highwayDistanceUnsync;
-        int dataLoss = expectedDistance - currentCounter;
+        long dataLoss = expectedDistance - currentCounter;
         double lossPercent = expectedDistance > 0 ? (dataLoss * 100.0 / expectedDistance) : 0;
         
         String message = String.format(
@@ -345,23 +346,39 @@ public class HighwaySimulatorGUI extends JFrame {
             "Data Loss: %d km (%.2f%%)\n\n" +
             "Mode: %s",
             expectedDistance, currentCounter, dataLoss, lossPercent,
-            useSynchronization ? "Synchronized" : "Unsynchronized"
+            mode == SimulationMode.ENGINE ? mode.getLabel() : counterStrategy.toString()
         );
         
         JOptionPane.showMessageDialog(this, message, "Simulation Complete", JOptionPane.INFORMATION_MESSAGE);
     }
     
     private void updateCounterDisplay() {
-        int currentCounter = useSynchronization ? highwayDistanceSync : highwayDistanceUnsync;
+        if (simulation == null) return;
+        long currentCounter = simulation.getHighwayDistance();
+        long expectedDistance = simulation.getExpectedDistance();
         
+        clockLabel.setText(String.format("Simulated Time: %s (%s, %s wall-clock)",
+            formatDuration(clock.getSimulatedMillis()), clock, formatDuration(clock.getWallMillis())));
         highwayCounterLabel.setText("Total Highway Distance: " + currentCounter + " km");
         expectedLabel.setText("Expected Distance: " + expectedDistance + " km");
         
-        int dataLoss = expectedDistance - currentCounter;
+        long dataLoss = expectedDistance - currentCounter;
         double lossPercent = expectedDistance > 0 ? (dataLoss * 100.0 / expectedDistance) : 0;
         
         dataLossLabel.setText(String.format("Data Loss: %d km (%.2f%%)", dataLoss, lossPercent));
         
+        if (simulation instanceof ThreadedSimulation ts) {
+            HighwayCounter counter = ts.getHighwayCounter();
+            contentionLabel.setText(String.format("Counter: %s | %.0f ns/increment | contended: %d",
+                counter.getName(), counter.getAverageIncrementNanos(), counter.getContentionCount()));
+        } else {
+            contentionLabel.setText("Counter: single engine thread (uncontended)");
+        }
+        
+        frameLabel.setText(String.format("Frames: %d at %d fps, %d dropped | row updates: %d merged, %d dropped",
+            frames.getFrames(), frames.getTargetFps(), frames.getDroppedFrames(),
+            frames.getMergedUpdates(), frames.getDroppedUpdates()));
+        
         if (dataLoss == 0) {
             dataLossLabel.setForeground(new Color(0, 128, 0));
         } else if (lossPercent < 5) {
@@ -371,6 +388,11 @@ public class HighwaySimulatorGUI extends JFrame {
         }
     }
     
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+    
     private void refuelAllVehicles() {
         String amountStr = JOptionPane.showInputDialog(this, 
             "Enter fuel amount to add to ALL vehicles (liters):",
@@ -409,9 +431,8 @@ public class HighwaySimulatorGUI extends JFrame {
                             v.getId(), oldFuel, newFuel));
                         
                         // Resume vehicle if it was out of fuel
-                        VehicleThread vt = findThreadForVehicle(v.getId());
-                        if (vt != null && "Out of Fuel".equals(vt.getStatus())) {
-                            vt.resumeVehicle();
+                        if (simulation != null && "Out of Fuel".equals(simulation.getStatus(v.getId()))) {
+                            simulation.resumeVehicle(v.getId());
                         }
                         
                         refueledCount++;
@@ -436,100 +457,16 @@ public class HighwaySimulatorGUI extends JFrame {
         }
     }
     
-    private class VehicleThread extends Thread {
-        private Vehicle vehicle;
-        private volatile boolean running = true;
-        private volatile boolean paused = false;
-        private String status = "Running";
-        
-        public VehicleThread(Vehicle vehicle) {
-            this.vehicle = vehicle;
-            setName("VehicleThread-" + vehicle.getId());
-        }
-        
-        @Override
-        public void run() {
-            while (running && isRunning) {
-                if (!paused) {
-                    try {
-                        if (vehicle instanceof interfaces.FuelConsumable) {
-                            interfaces.FuelConsumable fc = (interfaces.FuelConsumable) vehicle;
-                            if (fc.getFuelLevel() <= 0.1) {
-                                status = "Out of Fuel";
-                                paused = true;
-                                continue;
-                            }
-                        }
-                        
-                        double distance = 1.0;
-                        vehicle.move(distance);
-                        status = "Running";
-                        
-                        expectedDistance++;
-                        
-                        if (useSynchronization) {
-                            lock.lock();
-                            try {
-                                highwayDistanceSync++;
-                            } finally {
-                                lock.unlock();
-                            }
-                        } else {
-                            int temp = highwayDistanceUnsync;
-                            try {
-                                Thread.sleep(1);
-                            } catch (InterruptedException e) {
-                            }
-                            highwayDistanceUnsync = temp + 1;
-                        }
-                        
-                        Thread.sleep(1000);
-                        
-                    } catch (InsufficientFuelException e) {
-                        status = "Out of Fuel";
-                        paused = true;
-                    } catch (InterruptedException e) {
-                        break;
-                    } catch (Exception e) {
-                        status = "Error";
-                        System.err.println("Error in thread " + vehicle.getId() + ": " + e.getMessage());
-                        paused = true;
-                    }
-                } else {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-            }
-            status = "Stopped";
-        }
-        
-        public void pauseVehicle() {
-            paused = true;
-            status = "Paused";
-        }
-        
-        public void resumeVehicle() {
-            paused = false;
-            status = "Running";
-        }
-        
-        public void stopVehicle() {
-            running = false;
-            interrupt();
-        }
-        
-        public String getStatus() {
-            return status;
-        }
+    // Step limit for the vehicles of every mode, see SimulationEngine.setMaxStepKm.
+    public void setMaxStepKm(int maxStepKm) {
+        if (maxStepKm < 1) throw new IllegalArgumentException("Step limit must be at least 1 km.");
+        this.maxStepKm = maxStepKm;
     }
-
+    
     public void loadFleetFromFile(String filename) {
         try {
             fleetManager.loadFromFile(filename);
-            updateVehicleTable();
+            tableModel.setFleet(fleetManager.getFleet());
             JOptionPane.showMessageDialog(this, "Loaded: " + filename);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Could not load file: " + e.getMessage());
@@ -538,11 +475,54 @@ public class HighwaySimulatorGUI extends JFrame {
 
     
     public static void main(String[] args) {
+        SimulationMode mode = SimulationMode.ENGINE;
+        int fps = FrameScheduler.DEFAULT_FPS;
+        SimulationClock clock = SimulationClock.realTime();
+        int step = 1;
+        for (String arg : args) {
+            if (arg.startsWith("--mode=")) {
+                try {
+                    mode = SimulationMode.fromFlag(arg.substring("--mode=".length()));
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage() + " (using " + mode.getFlag() + ")");
+                }
+            } else if (arg.startsWith("--fps=")) {
+                try {
+                    fps = Integer.parseInt(arg.substring("--fps=".length()));
+                    if (fps <= 0) throw new NumberFormatException();
+                } catch (NumberFormatException e) {
+                    fps = FrameScheduler.DEFAULT_FPS;
+                    System.out.println("Invalid frame rate: " + arg + " (using " + fps + ")");
+                }
+            } else if (arg.startsWith("--speed=")) {
+                try {
+                    clock = SimulationClock.fromFlag(arg.substring("--speed=".length()));
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage() + " (using " + clock + ")");
+                }
+            } else if (arg.startsWith("--step=")) {
+                String value = arg.substring("--step=".length());
+                try {
+                    step = value.equals("adaptive") ? SimulationEngine.ADAPTIVE_STEP : Integer.parseInt(value);
+                    if (step < 1) throw new NumberFormatException();
+                } catch (NumberFormatException e) {
+                    step = 1;
+                    System.out.println("Invalid step: " + arg + " (using 1 km)");
+                }
+            } else if (!Metrics.startFromFlag(arg)) {
+                System.out.println("Unknown option: " + arg);
+            }
+        }
+        SimulationMode selectedMode = mode;
+        int targetFps = fps;
+        SimulationClock selectedClock = clock;
+        int maxStepKm = step;
         Scanner sc = new Scanner(System.in);
         System.out.print("Enter CSV filename to load: ");
         String file = sc.nextLine().trim();
         SwingUtilities.invokeLater(() -> {
-            HighwaySimulatorGUI gui = new HighwaySimulatorGUI();
+            HighwaySimulatorGUI gui = new HighwaySimulatorGUI(selectedMode, targetFps, selectedClock);
+            gui.setMaxStepKm(maxStepKm);
             if (!file.isEmpty()) gui.loadFleetFromFile(file);
         sc.close();
         });
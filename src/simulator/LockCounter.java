@@ -0,0 +1,61 @@
+package simulator;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import metrics.Metrics;
+
+public class LockCounter extends AbstractHighwayCounter {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder contended = new LongAdder();
+    private long value = 0;
+
+    public LockCounter() {
+        super("ReentrantLock");
+    }
+
+    @Override
+    protected void doIncrement() {
+        doAdd(1);
+    }
+
+    @Override
+    protected void doAdd(long delta) {
+        if (!lock.tryLock()) {
+            contended.increment();
+            long begin = Metrics.COUNTER_LOCK_WAIT.begin();
+            lock.lock();
+            Metrics.COUNTER_LOCK_WAIT.end(begin);
+            Metrics.COUNTER_LOCK_WAITS.increment();
+        }
+        try {
+            value += delta;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long sum() {
+        lock.lock();
+        try {
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        contended.reset();
+        lock.lock();
+        try {
+            value = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getContentionCount() { return contended.sum(); }
+}
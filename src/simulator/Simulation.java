@@ -0,0 +1,22 @@
+package simulator;
+
+import java.util.function.IntConsumer;
+
+public interface Simulation {
+    void start();
+    void pause();
+    void resume();
+    void stop();
+    boolean isRunning();
+    boolean isPaused();
+    void resumeVehicle(String vehicleId);
+    String getStatus(String vehicleId);
+    // Position of the vehicle in this simulation, or -1; getStatusAt(indexOf(id)) equals getStatus(id).
+    int indexOf(String vehicleId);
+    String getStatusAt(int index);
+    // Called, from the simulation's own threads, with the index of a vehicle whose status may have changed.
+    void setStatusListener(IntConsumer listener);
+    long getHighwayDistance();
+    long getExpectedDistance();
+    SimulationClock getClock();
+}
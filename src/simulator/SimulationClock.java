@@ -0,0 +1,119 @@
+package simulator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Maps simulated time onto wall-clock time for the simulations: in real time one simulated second
+// takes one second, scaled by a speedup it takes 1/speedup seconds, and as fast as possible it
+// takes no time at all, so runs are bounded only by the CPU. Simulations wait through the clock
+// instead of calling Thread.sleep, and report how far they have got so that the statistics
+// panel can show simulated time next to wall-clock time.
+public final class SimulationClock {
+    private static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+    // Wall-clock time one batch of steps may stand for. A simulation makes a batch, counts it and
+    // waits for it as a whole, so pause and stop only take effect between batches.
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // As fast as possible a batch takes no wall-clock time; this bounds how long one batch keeps
+    // a vehicle to itself.
+    private static final int MAX_STEPS_PER_SLICE = 1024;
+
+    private final double speedup;
+    private final AtomicLong simulatedMillis = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+
+    private SimulationClock(double speedup) {
+        this.speedup = speedup;
+    }
+
+    public static SimulationClock realTime() {
+        return new SimulationClock(1.0);
+    }
+
+    // speedup simulated seconds per wall-clock second.
+    public static SimulationClock scaled(double speedup) {
+        if (!(speedup > 0) || Double.isInfinite(speedup)) {
+            throw new IllegalArgumentException("Speedup must be a positive number.");
+        }
+        return new SimulationClock(speedup);
+    }
+
+    public static SimulationClock asFastAsPossible() {
+        return new SimulationClock(AS_FAST_AS_POSSIBLE);
+    }
+
+    // "realtime", "max" / "afap", or a speedup such as "10" or "10x".
+    public static SimulationClock fromFlag(String flag) {
+        String f = flag.trim().toLowerCase();
+        if (f.equals("realtime") || f.equals("1") || f.equals("1x")) return realTime();
+        if (f.equals("max") || f.equals("afap")) return asFastAsPossible();
+        if (f.endsWith("x")) f = f.substring(0, f.length() - 1);
+        try {
+            return scaled(Double.parseDouble(f));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown clock speed: " + flag);
+        }
+    }
+
+    public boolean isAsFastAsPossible() {
+        return speedup == AS_FAST_AS_POSSIBLE;
+    }
+
+    public double getSpeedup() {
+        return speedup;
+    }
+
+    // Wall-clock time that simulatedMillis take at this speed; 0 when running as fast as possible.
+    public long toWallNanos(long simulatedMillis) {
+        if (isAsFastAsPossible()) return 0;
+        return (long) (TimeUnit.MILLISECONDS.toNanos(simulatedMillis) / speedup);
+    }
+
+    // How many steps of simulatedMillis each fit in one batch, from 1 up to maxSteps. In real time
+    // a one-second step already fills a slice, so batching changes nothing there.
+    public int stepsPerSlice(long simulatedMillis, int maxSteps) {
+        long nanos = toWallNanos(simulatedMillis);
+        long steps = nanos == 0 ? MAX_STEPS_PER_SLICE : Math.max(1, SLICE_NANOS / nanos);
+        return (int) Math.min(steps, maxSteps);
+    }
+
+    // Lets simulatedMillis pass for the calling thread. As fast as possible this only yields,
+    // but an interrupted thread still gets its InterruptedException.
+    public void sleep(long simulatedMillis) throws InterruptedException {
+        long nanos = toWallNanos(simulatedMillis);
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } else {
+            if (Thread.interrupted()) throw new InterruptedException();
+            Thread.yield();
+        }
+    }
+
+    // Restarts the count of simulated and wall-clock time.
+    public void reset() {
+        simulatedMillis.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    // Records that some part of the simulation has reached the given simulated instant.
+    public void reached(long simulatedMillis) {
+        if (simulatedMillis > this.simulatedMillis.get()) {
+            this.simulatedMillis.accumulateAndGet(simulatedMillis, Math::max);
+        }
+    }
+
+    // The furthest simulated instant reached since the last reset.
+    public long getSimulatedMillis() {
+        return simulatedMillis.get();
+    }
+
+    public long getWallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public String toString() {
+        if (isAsFastAsPossible()) return "as fast as possible";
+        if (speedup == 1.0) return "real time";
+        return (speedup == Math.rint(speedup) ? String.valueOf((long) speedup) : String.valueOf(speedup)) + "x";
+    }
+}
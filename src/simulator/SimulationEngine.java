@@ -0,0 +1,532 @@
+package simulator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import vehicle.*;
+import fleet.FleetManager;
+import fleet.FleetSnapshot;
+import exception.*;
+import interfaces.FuelConsumable;
+import sink.AsyncMovementLogger;
+import sink.CountingMovementSink;
+
+// Vehicles are split into partitions, each with its own event queue, and a tick advances every
+// partition, in parallel when a pool is given, before the next tick starts. Vehicles never
+// affect each other, so every vehicle sees exactly the same sequence of moves whatever the
+// partitioning and however many threads run it: the final state and counters of a run are
+// reproducible to the byte, and stateDigest() fingerprints them. The seed only decides which
+// vehicles share a partition; within a partition events run in (tick, vehicle) order.
+public class SimulationEngine implements Simulation {
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+    public static final double KM_PER_TICK = 1.0;
+    // A vehicle at or below this fuel level is out of fuel.
+    public static final double FUEL_RESERVE = 0.1;
+    // Step limit that lets a vehicle cover as many km in one event as nothing else can happen in.
+    public static final int ADAPTIVE_STEP = Integer.MAX_VALUE;
+    // Partitions used by the command line when run on more than one thread. The count is fixed
+    // rather than derived from the thread count, although results do not depend on it either.
+    public static final int DEFAULT_PARTITIONS = 64;
+
+    private static final byte READY = 0;
+    private static final byte RUNNING = 1;
+    private static final byte OUT_OF_FUEL = 2;
+    private static final byte ERROR = 3;
+    private static final String[] STATUS_NAMES = {"Ready", "Running", "Out of Fuel", "Error"};
+    // Status bytes are written by the engine's threads and read from others, such as the GUI,
+    // so they are stored with release and read there with acquire.
+    private static final VarHandle STATUS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final Vehicle[] vehicles;
+    private final Map<String, Integer> indexById;
+    private final byte[] status;
+    private final Partition[] partitions;
+    // Partition of each vehicle; null while there is only one.
+    private final int[] partitionOf;
+    private final ForkJoinPool pool;
+    private final long seed;
+    private final ConcurrentLinkedQueue<Integer> wakeups = new ConcurrentLinkedQueue<>();
+    private final SimulationClock clock;
+
+    private volatile long tick = 0;
+    private volatile long highwayDistance = 0;
+    private volatile long expectedDistance = 0;
+    private volatile boolean running = false;
+    private volatile boolean paused = false;
+    private volatile boolean stopped = false;
+    private volatile IntConsumer statusListener;
+    private volatile int maxStepKm = 1;
+    private Thread driver;
+
+    public SimulationEngine(List<Vehicle> fleet) {
+        this(fleet, SimulationClock.realTime());
+    }
+
+    // Paces each simulated second as tickMillis of wall-clock time; 0 runs as fast as possible.
+    public SimulationEngine(List<Vehicle> fleet, long tickMillis) {
+        this(fleet, clockFor(tickMillis));
+    }
+
+    public SimulationEngine(List<Vehicle> fleet, SimulationClock clock) {
+        this(fleet, clock, null, 1, 0);
+    }
+
+    // Runs the given number of partitions on pool; with a null pool they run on the calling thread.
+    public SimulationEngine(List<Vehicle> fleet, SimulationClock clock, ForkJoinPool pool, int partitionCount, long seed) {
+        if (partitionCount < 1) throw new IllegalArgumentException("At least one partition is needed.");
+        this.clock = clock;
+        this.pool = pool;
+        this.seed = seed;
+        this.vehicles = fleet.toArray(new Vehicle[0]);
+        this.status = new byte[vehicles.length];
+        this.indexById = new HashMap<>(vehicles.length * 2);
+        for (int i = 0; i < vehicles.length; i++) {
+            indexById.put(vehicles[i].getId(), i);
+        }
+        int count = Math.max(1, Math.min(partitionCount, vehicles.length));
+        this.partitions = new Partition[count];
+        if (count == 1) {
+            partitionOf = null;
+            partitions[0] = new Partition(vehicles.length);
+            for (int i = 0; i < vehicles.length; i++) {
+                partitions[0].events.add(0, i);
+            }
+            return;
+        }
+        partitionOf = new int[vehicles.length];
+        int[] order = shuffledIndexes(vehicles.length, seed);
+        for (int p = 0; p < count; p++) {
+            int from = (int) ((long) vehicles.length * p / count);
+            int to = (int) ((long) vehicles.length * (p + 1) / count);
+            partitions[p] = new Partition(to - from);
+            for (int k = from; k < to; k++) {
+                partitionOf[order[k]] = p;
+                partitions[p].events.add(0, order[k]);
+            }
+        }
+    }
+
+    private static int[] shuffledIndexes(int n, long seed) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || stopped) return;
+        running = true;
+        if (tick == 0) clock.reset();
+        driver = new Thread(this::drive, "SimulationEngine");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    // With a step limit above 1 a vehicle event covers several ticks at once, but never beyond
+    // the end of the run, so the fleet ends up exactly as with one-km steps.
+    public long run(long ticks) {
+        if (running) throw new IllegalStateException("Engine is already driven by its own thread.");
+        long horizon = tick + ticks;
+        long processed = 0;
+        while (tick < horizon && !stopped) {
+            processed += step(horizon);
+        }
+        return processed;
+    }
+
+    public int step() {
+        return step(tick + 1);
+    }
+
+    // Largest number of km a vehicle may cover in one event; 1 (the default) moves every vehicle
+    // one km per tick, ADAPTIVE_STEP as far as it can go before running low on fuel or coming
+    // to need maintenance. The driver thread of start() lets an event run at most the clock's
+    // stepsPerSlice ticks ahead, so a paused or stopped engine is never further ahead than that.
+    public void setMaxStepKm(int maxStepKm) {
+        if (maxStepKm < 1) throw new IllegalArgumentException("Step limit must be at least 1 km.");
+        this.maxStepKm = maxStepKm;
+    }
+
+    public int getMaxStepKm() {
+        return maxStepKm;
+    }
+
+    private int step(long horizon) {
+        drainWakeups();
+        long now = tick;
+        if (partitions.length == 1 || pool == null) {
+            for (Partition partition : partitions) {
+                partition.advanceTick(now, horizon);
+            }
+        } else {
+            pool.invoke(new TickTask(0, partitions.length, now, horizon));
+        }
+        // Summed in partition order once every partition has finished the tick.
+        int processed = 0;
+        long moved = 0;
+        for (Partition partition : partitions) {
+            processed += partition.processed;
+            moved += partition.moved;
+        }
+        expectedDistance += moved;
+        highwayDistance += moved;
+        tick = now + 1;
+        clock.reached(tick * DEFAULT_TICK_MILLIS);
+        return processed;
+    }
+
+    // SHA-256 of the fleet in engine order, as FleetSnapshot writes it, followed by the tick,
+    // both distance counters and every vehicle's status. Meant for a stopped or finished run.
+    public String stateDigest() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            FleetSnapshot.digest(Arrays.asList(vehicles), digest);
+            long[] counters = {tick, highwayDistance, expectedDistance};
+            for (long counter : counters) {
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    digest.update((byte) (counter >>> shift));
+                }
+            }
+            digest.update(status);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    public long getSeed() { return seed; }
+    public int getPartitionCount() { return partitions.length; }
+
+    private static SimulationClock clockFor(long tickMillis) {
+        if (tickMillis < 0) throw new IllegalArgumentException("Tick length cannot be negative.");
+        if (tickMillis == 0) return SimulationClock.asFastAsPossible();
+        return SimulationClock.scaled((double) DEFAULT_TICK_MILLIS / tickMillis);
+    }
+
+    private void drainWakeups() {
+        Integer i;
+        while ((i = wakeups.poll()) != null) {
+            if (status[i] == OUT_OF_FUEL || status[i] == ERROR) {
+                setStatus(i, RUNNING);
+                partitions[partitionOf == null ? 0 : partitionOf[i]].events.add(tick, i);
+            }
+        }
+    }
+
+    private void setStatus(int i, byte newStatus) {
+        if (status[i] == newStatus) return;
+        STATUS.setRelease(status, i, newStatus);
+        IntConsumer l = statusListener;
+        if (l != null) l.accept(i);
+    }
+
+    private void drive() {
+        long tickNanos = clock.toWallNanos(DEFAULT_TICK_MILLIS);
+        long deadline = System.nanoTime();
+        long horizon = tick;
+        while (running) {
+            synchronized (this) {
+                while (paused && running) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            if (!running) break;
+            if (tick >= horizon) horizon = tick + clock.stepsPerSlice(DEFAULT_TICK_MILLIS, maxStepKm);
+            step(horizon);
+            if (tickNanos == 0) continue;
+            deadline += tickNanos;
+            long delay = deadline - System.nanoTime();
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay / 1_000_000L, (int) (delay % 1_000_000L));
+                } catch (InterruptedException e) {
+                    break;
+                }
+            } else {
+                deadline = System.nanoTime();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    @Override
+    public synchronized void resume() {
+        for (int i = 0; i < status.length; i++) {
+            if (statusAt(i) == OUT_OF_FUEL) wakeups.add(i);
+        }
+        paused = false;
+        notifyAll();
+    }
+
+    @Override
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            stopped = true;
+            notifyAll();
+            t = driver;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+            try {
+                t.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    @Override
+    public boolean isPaused() { return paused; }
+
+    @Override
+    public void resumeVehicle(String vehicleId) {
+        Integer i = indexById.get(vehicleId);
+        if (i != null) wakeups.add(i);
+    }
+
+    @Override
+    public String getStatus(String vehicleId) {
+        return getStatusAt(indexOf(vehicleId));
+    }
+
+    @Override
+    public int indexOf(String vehicleId) {
+        Integer i = indexById.get(vehicleId);
+        return i != null ? i : -1;
+    }
+
+    @Override
+    public void setStatusListener(IntConsumer listener) {
+        statusListener = listener;
+    }
+
+    @Override
+    public String getStatusAt(int index) {
+        if (index < 0 || index >= vehicles.length) return STATUS_NAMES[READY];
+        if (stopped) return "Stopped";
+        byte s = statusAt(index);
+        if (paused && s == RUNNING) return "Paused";
+        return STATUS_NAMES[s];
+    }
+
+    private byte statusAt(int index) {
+        return (byte) STATUS.getAcquire(status, index);
+    }
+
+    @Override
+    public long getHighwayDistance() { return highwayDistance; }
+
+    @Override
+    public long getExpectedDistance() { return expectedDistance; }
+
+    @Override
+    public SimulationClock getClock() { return clock; }
+
+    public long getTick() { return tick; }
+    public int getPendingEvents() {
+        int pending = 0;
+        for (Partition partition : partitions) {
+            pending += partition.events.size();
+        }
+        return pending;
+    }
+
+    public int getVehicleCount() { return vehicles.length; }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java simulator.SimulationEngine <fleet.csv | --synthetic COUNT> [ticks] [--adaptive] [--log]"
+                    + " [--threads=N] [--partitions=P] [--seed=S] [--snapshot=FILE]");
+            return;
+        }
+        FleetManager fleetManager = new FleetManager();
+        int argIndex = 0;
+        try {
+            if (args[0].equals("--synthetic")) {
+                int count = Integer.parseInt(args[1]);
+                for (int i = 0; i < count; i++) {
+                    Car car = new Car(String.format("C%07d", i), "Synthetic", 120, 4);
+                    car.refuel(1000);
+                    fleetManager.addVehicle(car);
+                }
+                argIndex = 2;
+            } else {
+                fleetManager.loadFromFile(args[0]);
+                argIndex = 1;
+            }
+        } catch (NumberFormatException | InvalidOperationException e) {
+            System.out.println("Error preparing fleet: " + e.getMessage());
+            return;
+        }
+        long ticks = args.length > argIndex && !args[argIndex].startsWith("--") ? Long.parseLong(args[argIndex]) : 3600;
+        boolean logMoves = false;
+        boolean adaptive = false;
+        int threads = 1;
+        int partitionCount = 0;
+        long seed = 0;
+        String snapshotFile = null;
+        try {
+            for (int i = argIndex; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--log")) logMoves = true;
+                else if (arg.equals("--adaptive")) adaptive = true;
+                else if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring("--threads=".length()));
+                else if (arg.startsWith("--partitions=")) partitionCount = Integer.parseInt(arg.substring("--partitions=".length()));
+                else if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+                else if (arg.startsWith("--snapshot=")) snapshotFile = arg.substring("--snapshot=".length());
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid option: " + e.getMessage());
+            return;
+        }
+        if (threads < 1) threads = 1;
+        if (partitionCount < 1) partitionCount = threads > 1 ? DEFAULT_PARTITIONS : 1;
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        SimulationEngine engine = new SimulationEngine(fleetManager.getFleet(), SimulationClock.asFastAsPossible(),
+                pool, partitionCount, seed);
+        if (adaptive) engine.setMaxStepKm(ADAPTIVE_STEP);
+        CountingMovementSink counter = new CountingMovementSink();
+        AsyncMovementLogger logger = logMoves ? new AsyncMovementLogger(1 << 16) : null;
+        Vehicle.setMovementSink(logMoves ? logger : counter);
+        long begin = System.nanoTime();
+        long processed;
+        try {
+            processed = engine.run(ticks);
+        } finally {
+            Vehicle.setMovementSink(Vehicle.CONSOLE_SINK);
+            if (logger != null) logger.close();
+            if (pool != null) pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("Simulated %d vehicles for %d ticks (%d s simulated) in %.3f s wall-clock%n",
+                engine.getVehicleCount(), ticks, ticks * DEFAULT_TICK_MILLIS / 1000, seconds);
+        System.out.printf("Events processed: %d (%.0f events/s), speedup: %.1fx%n",
+                processed, processed / seconds, (ticks * DEFAULT_TICK_MILLIS / 1000.0) / seconds);
+        System.out.println("Total highway distance: " + engine.getHighwayDistance() + " km");
+        if (logger != null) {
+            System.out.println("Movement log lines dropped: " + logger.getDroppedCount());
+        } else {
+            System.out.println("Moves reported: " + counter.getMoveCount());
+        }
+        System.out.printf("Threads: %d, partitions: %d, seed: %d%n", threads, engine.getPartitionCount(), seed);
+        System.out.println("State digest: " + engine.stateDigest());
+        if (snapshotFile != null) fleetManager.saveSnapshot(snapshotFile);
+    }
+
+    // The vehicles of one partition and what they did in the current tick. Only one thread
+    // advances a partition at a time, and the pool's join publishes its results.
+    private final class Partition {
+        private final EventQueue events;
+        private int processed;
+        private long moved;
+
+        Partition(int capacity) {
+            events = new EventQueue(capacity);
+        }
+
+        void advanceTick(long now, long horizon) {
+            processed = 0;
+            moved = 0;
+            while (!events.isEmpty() && events.peekTick() <= now) {
+                advance(events.poll(), now, horizon);
+                processed++;
+            }
+        }
+
+        private void advance(int i, long now, long horizon) {
+            Vehicle vehicle = vehicles[i];
+            long maxSteps = Math.min(maxStepKm, horizon - now);
+            if (maxSteps > 1) {
+                advanceSteps(i, now, (int) maxSteps);
+                return;
+            }
+            if (vehicle instanceof FuelConsumable fc && fc.getFuelLevel() <= FUEL_RESERVE) {
+                setStatus(i, OUT_OF_FUEL);
+                return;
+            }
+            byte result = vehicle.tryMove(KM_PER_TICK);
+            if (result == Vehicle.MOVE_OK) {
+                setStatus(i, RUNNING);
+                moved++;
+                events.add(now + 1, i);
+            } else if (result == Vehicle.MOVE_INSUFFICIENT_FUEL) {
+                setStatus(i, OUT_OF_FUEL);
+            } else {
+                setStatus(i, ERROR);
+                System.err.println("Error moving " + vehicle.getId() + ": invalid distance " + KM_PER_TICK);
+            }
+        }
+
+        // A batch stops where a one-km step would change something other than fuel and mileage, and
+        // the vehicle's next event is at that tick; a batch of none is where a one-km step runs out.
+        private void advanceSteps(int i, long now, int maxSteps) {
+            int steps = vehicles[i].tryMoveSteps(KM_PER_TICK, maxSteps, FUEL_RESERVE);
+            if (steps == 0) {
+                setStatus(i, OUT_OF_FUEL);
+                return;
+            }
+            setStatus(i, RUNNING);
+            moved += steps;
+            events.add(now + steps, i);
+        }
+    }
+
+    private final class TickTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final long now;
+        private final long horizon;
+
+        TickTask(int from, int to, long now, long horizon) {
+            this.from = from;
+            this.to = to;
+            this.now = now;
+            this.horizon = horizon;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                partitions[from].advanceTick(now, horizon);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TickTask(from, mid, now, horizon), new TickTask(mid, to, now, horizon));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package simulator;
+
+public enum SimulationMode {
+    ENGINE("engine", "Discrete-Event Engine"),
+    PLATFORM_THREADS("threads", "Thread per Vehicle"),
+    VIRTUAL_THREADS("virtual", "Virtual Thread per Vehicle");
+
+    private final String flag;
+    private final String label;
+
+    SimulationMode(String flag, String label) {
+        this.flag = flag;
+        this.label = label;
+    }
+
+    public String getFlag() { return flag; }
+    public String getLabel() { return label; }
+
+    public static SimulationMode fromFlag(String flag) {
+        for (SimulationMode mode : values()) {
+            if (mode.flag.equalsIgnoreCase(flag)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown simulation mode: " + flag);
+    }
+}
@@ -0,0 +1,51 @@
+package simulator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A fixed, power-of-two set of padded cells picked by thread id. The cell count depends only on
+// the core count, so neither a burst of short-lived (virtual) threads nor a long run makes
+// increments or reads any slower; readers sum every cell.
+public class StripedCounter extends AbstractHighwayCounter {
+    private static final int PAD = 8;
+    private static final int CELLS = Math.min(Integer.highestOneBit(Math.max(1, 4 * Runtime.getRuntime().availableProcessors() - 1)) << 1, 64);
+
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * PAD);
+
+    public StripedCounter() {
+        super("Striped cells");
+    }
+
+    @Override
+    protected void doIncrement() {
+        doAdd(1);
+    }
+
+    @Override
+    protected void doAdd(long delta) {
+        // Thread ids are handed out in sequence, so consecutive threads land in different cells.
+        int cell = (int) Thread.currentThread().threadId() & (CELLS - 1);
+        cells.getAndAdd(cell * PAD, delta);
+    }
+
+    @Override
+    public long sum() {
+        long total = 0;
+        for (int c = 0; c < CELLS; c++) {
+            total += cells.get(c * PAD);
+        }
+        return total;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        for (int c = 0; c < CELLS; c++) {
+            cells.set(c * PAD, 0);
+        }
+    }
+
+    @Override
+    public long getContentionCount() { return 0; }
+
+    public int getCellCount() { return CELLS; }
+}
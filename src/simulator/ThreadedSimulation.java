@@ -0,0 +1,274 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+import vehicle.*;
+import exception.*;
+
+public class ThreadedSimulation implements Simulation {
+    // Each vehicle drives one km per simulated second.
+    private static final long MILLIS_PER_KM = 1000;
+
+    private final HighwayCounter highwayCounter;
+    private final LongAdder expectedDistance = new LongAdder();
+
+    private final List<Vehicle> vehicles;
+    private final List<VehicleWorker> workers = new ArrayList<>();
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final boolean virtualThreads;
+    private final SimulationClock clock;
+    private CountDownLatch finished = new CountDownLatch(0);
+    private volatile boolean isRunning = false;
+    private volatile boolean isPaused = false;
+    private volatile IntConsumer statusListener;
+    private volatile int maxStepKm = 1;
+
+    public ThreadedSimulation(List<Vehicle> vehicles, HighwayCounter highwayCounter) {
+        this(vehicles, highwayCounter, false);
+    }
+
+    public ThreadedSimulation(List<Vehicle> vehicles, HighwayCounter highwayCounter, boolean virtualThreads) {
+        this(vehicles, highwayCounter, virtualThreads, SimulationClock.realTime());
+    }
+
+    public ThreadedSimulation(List<Vehicle> vehicles, HighwayCounter highwayCounter, boolean virtualThreads,
+                              SimulationClock clock) {
+        this.vehicles = new ArrayList<>(vehicles);
+        for (int i = 0; i < this.vehicles.size(); i++) {
+            indexById.put(this.vehicles.get(i).getId(), i);
+        }
+        this.highwayCounter = highwayCounter;
+        this.virtualThreads = virtualThreads;
+        this.clock = clock;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public HighwayCounter getHighwayCounter() {
+        return highwayCounter;
+    }
+
+    @Override
+    public void start() {
+        if (isRunning) return;
+        highwayCounter.reset();
+        expectedDistance.reset();
+        clock.reset();
+        isRunning = true;
+        finished = new CountDownLatch(vehicles.size());
+
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+        for (Vehicle v : vehicles) {
+            VehicleWorker worker = new VehicleWorker(v, workers.size());
+            worker.thread = builder.name("VehicleThread-" + v.getId()).unstarted(worker);
+            workers.add(worker);
+        }
+        for (VehicleWorker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    @Override
+    public void pause() {
+        isPaused = true;
+        for (VehicleWorker worker : workers) {
+            worker.pauseVehicle();
+        }
+    }
+
+    @Override
+    public void resume() {
+        isPaused = false;
+        for (VehicleWorker worker : workers) {
+            worker.resumeVehicle();
+        }
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        for (VehicleWorker worker : workers) {
+            worker.stopVehicle();
+        }
+
+        try {
+            if (!finished.await(2, TimeUnit.SECONDS)) {
+                System.err.println(finished.getCount() + " vehicle threads did not stop within 2 seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() { return isRunning; }
+
+    @Override
+    public boolean isPaused() { return isPaused; }
+
+    @Override
+    public void resumeVehicle(String vehicleId) {
+        int i = indexOf(vehicleId);
+        if (i >= 0 && i < workers.size()) {
+            workers.get(i).resumeVehicle();
+        }
+    }
+
+    @Override
+    public String getStatus(String vehicleId) {
+        return getStatusAt(indexOf(vehicleId));
+    }
+
+    @Override
+    public int indexOf(String vehicleId) {
+        Integer i = indexById.get(vehicleId);
+        return i != null ? i : -1;
+    }
+
+    @Override
+    public void setStatusListener(IntConsumer listener) {
+        statusListener = listener;
+    }
+
+    // Workers are created in vehicle order when the simulation starts.
+    @Override
+    public String getStatusAt(int index) {
+        return index >= 0 && index < workers.size() ? workers.get(index).getStatus() : "Ready";
+    }
+
+    @Override
+    public long getHighwayDistance() {
+        return highwayCounter.sum();
+    }
+
+    @Override
+    public long getExpectedDistance() { return expectedDistance.sum(); }
+
+    @Override
+    public SimulationClock getClock() { return clock; }
+
+    // As SimulationEngine.setMaxStepKm: 1 (the default) drives one km per iteration, larger values
+    // let each vehicle thread cover up to that many km per move, counter update and sleep, but
+    // never more than the clock's stepsPerSlice, so pause and stop still land within a slice.
+    public void setMaxStepKm(int maxStepKm) {
+        if (maxStepKm < 1) throw new IllegalArgumentException("Step limit must be at least 1 km.");
+        this.maxStepKm = maxStepKm;
+    }
+
+    public int getMaxStepKm() {
+        return maxStepKm;
+    }
+
+    private class VehicleWorker implements Runnable {
+        private final Vehicle vehicle;
+        private final int index;
+        private Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean paused = false;
+        private volatile String status = "Running";
+        private long simulatedMillis;
+
+        public VehicleWorker(Vehicle vehicle, int index) {
+            this.vehicle = vehicle;
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            try {
+                drive();
+            } finally {
+                setStatus("Stopped");
+                finished.countDown();
+            }
+        }
+
+        private void drive() {
+            while (running && isRunning) {
+                if (!paused) {
+                    try {
+                        if (vehicle instanceof interfaces.FuelConsumable) {
+                            interfaces.FuelConsumable fc = (interfaces.FuelConsumable) vehicle;
+                            if (fc.getFuelLevel() <= SimulationEngine.FUEL_RESERVE) {
+                                setStatus("Out of Fuel");
+                                paused = true;
+                                continue;
+                            }
+                        }
+
+                        int km;
+                        int batchKm = clock.stepsPerSlice(MILLIS_PER_KM, maxStepKm);
+                        if (batchKm > 1) {
+                            km = vehicle.tryMoveSteps(1.0, batchKm, SimulationEngine.FUEL_RESERVE);
+                            if (km == 0) {
+                                setStatus("Out of Fuel");
+                                paused = true;
+                                continue;
+                            }
+                        } else {
+                            vehicle.move(1.0);
+                            km = 1;
+                        }
+                        setStatus("Running");
+
+                        expectedDistance.add(km);
+                        highwayCounter.add(km);
+
+                        simulatedMillis += km * MILLIS_PER_KM;
+                        clock.reached(simulatedMillis);
+                        clock.sleep(km * MILLIS_PER_KM);
+
+                    } catch (InsufficientFuelException e) {
+                        setStatus("Out of Fuel");
+                        paused = true;
+                    } catch (InterruptedException e) {
+                        break;
+                    } catch (Exception e) {
+                        setStatus("Error");
+                        System.err.println("Error in thread " + vehicle.getId() + ": " + e.getMessage());
+                        paused = true;
+                    }
+                } else {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) break;
+                }
+            }
+        }
+
+        public void pauseVehicle() {
+            paused = true;
+            setStatus("Paused");
+        }
+
+        public void resumeVehicle() {
+            paused = false;
+            setStatus("Running");
+            LockSupport.unpark(thread);
+        }
+
+        public void stopVehicle() {
+            running = false;
+            thread.interrupt();
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        private void setStatus(String newStatus) {
+            if (status.equals(newStatus)) return;
+            status = newStatus;
+            IntConsumer l = statusListener;
+            if (l != null) l.accept(index);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package simulator;
+
+import java.util.concurrent.TimeUnit;
+
+// Deliberately racy read-sleep-write counter used to demonstrate lost updates. The sleep between
+// read and write is 1 ms by default; a window of 0 only yields, which still loses updates.
+public class UnsynchronizedCounter extends AbstractHighwayCounter {
+    private final long windowNanos;
+    private long value = 0;
+
+    public UnsynchronizedCounter() {
+        this(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    public UnsynchronizedCounter(long windowNanos) {
+        super("Unsynchronized");
+        if (windowNanos < 0) throw new IllegalArgumentException("Race window cannot be negative.");
+        this.windowNanos = windowNanos;
+    }
+
+    @Override
+    protected void doIncrement() {
+        doAdd(1);
+    }
+
+    @Override
+    protected void doAdd(long delta) {
+        long temp = value;
+        if (windowNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(windowNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            Thread.yield();
+        }
+        value = temp + delta;
+    }
+
+    @Override
+    public long sum() { return value; }
+
+    @Override
+    public void reset() {
+        super.reset();
+        value = 0;
+    }
+
+    @Override
+    public long getContentionCount() { return 0; }
+}
@@ -0,0 +1,189 @@
+package simulator;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+import vehicle.Vehicle;
+import vehicle.VehicleSnapshot;
+import interfaces.VehicleListener;
+
+// The GUI's vehicle table, read straight from the fleet instead of being copied row by row into a
+// DefaultTableModel on every refresh. Each row remembers the vehicle version and status it last
+// showed; refresh() snapshots only vehicles whose version has moved and reports just the rows that
+// changed, so the JTable repaints those rows and only when they are on screen. Cell text is
+// formatted when the table asks for it.
+//
+// Every row's position in the running simulation is looked up once when the simulation is set,
+// so a status read is an array access. Vehicle and status changes are posted to a FrameScheduler
+// from whichever thread makes them, and applyRows() takes them in once per frame. All other
+// methods run on the event dispatch thread.
+final class VehicleTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Vehicle ID", "Type", "Model", "Mileage (km)", "Fuel (L)", "Status"};
+    private static final String READY = "Ready";
+
+    private Vehicle[] vehicles = new Vehicle[0];
+    private int[] versions = new int[0];
+    private double[] mileage = new double[0];
+    private double[] fuel = new double[0];
+    private String[] status = new String[0];
+    private int[] simulationIndex = new int[0];
+    private RowListener[] listeners = new RowListener[0];
+    private Simulation simulation;
+    private final FrameScheduler frames;
+
+    VehicleTableModel(FrameScheduler frames) {
+        this.frames = frames;
+    }
+
+    // Replaces the rows with the given fleet, in its order.
+    void setFleet(List<Vehicle> fleet) {
+        for (int row = 0; row < vehicles.length; row++) {
+            vehicles[row].removeListener(listeners[row]);
+        }
+        int n = fleet.size();
+        frames.reset(n);
+        vehicles = fleet.toArray(new Vehicle[0]);
+        listeners = new RowListener[n];
+        versions = new int[n];
+        mileage = new double[n];
+        fuel = new double[n];
+        status = new String[n];
+        simulationIndex = new int[n];
+        for (int row = 0; row < n; row++) {
+            listeners[row] = new RowListener(row);
+            vehicles[row].addListener(listeners[row]);
+            readVehicle(row);
+        }
+        resolveSimulation();
+        fireTableDataChanged();
+    }
+
+    // The simulation whose statuses are shown; null shows every vehicle as ready.
+    void setSimulation(Simulation simulation) {
+        if (this.simulation != null) this.simulation.setStatusListener(null);
+        this.simulation = simulation;
+        resolveSimulation();
+        refresh();
+    }
+
+    // Brings the rows up to date, reporting each run of consecutive changed rows as one update.
+    void refresh() {
+        int first = -1;
+        for (int row = 0; row < vehicles.length; row++) {
+            if (refreshRow(row)) {
+                if (first < 0) first = row;
+            } else if (first >= 0) {
+                fireTableRowsUpdated(first, row - 1);
+                first = -1;
+            }
+        }
+        if (first >= 0) fireTableRowsUpdated(first, vehicles.length - 1);
+    }
+
+    // Brings the given rows, in ascending order, up to date; the FrameScheduler's frame handler.
+    void applyRows(int[] rows, int count) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            if (!refreshRow(row)) continue;
+            if (row != last + 1 && first >= 0) {
+                fireTableRowsUpdated(first, last);
+                first = -1;
+            }
+            if (first < 0) first = row;
+            last = row;
+        }
+        if (first >= 0) fireTableRowsUpdated(first, last);
+    }
+
+    @Override
+    public int getRowCount() {
+        return vehicles.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Vehicle v = vehicles[row];
+        return switch (column) {
+            case 0 -> v.getId();
+            case 1 -> v.getClass().getSimpleName();
+            case 2 -> v.getModel();
+            case 3 -> String.format("%.2f", mileage[row]);
+            case 4 -> Double.isNaN(fuel[row]) ? "N/A" : String.format("%.2f", fuel[row]);
+            default -> status[row];
+        };
+    }
+
+    private boolean refreshRow(int row) {
+        boolean changed = false;
+        if (vehicles[row].getVersion() != versions[row]) {
+            readVehicle(row);
+            changed = true;
+        }
+        String current = statusOf(row);
+        if (!current.equals(status[row])) {
+            status[row] = current;
+            changed = true;
+        }
+        return changed;
+    }
+
+    private void readVehicle(int row) {
+        VehicleSnapshot state = vehicles[row].snapshot();
+        versions[row] = state.version();
+        mileage[row] = state.mileage();
+        fuel[row] = state.fuelLevel();
+    }
+
+    private void resolveSimulation() {
+        int[] rowOf = simulation != null ? new int[vehicles.length] : null;
+        for (int row = 0; row < vehicles.length; row++) {
+            int i = simulation != null ? simulation.indexOf(vehicles[row].getId()) : -1;
+            simulationIndex[row] = i;
+            status[row] = statusOf(row);
+            if (i < 0) continue;
+            if (i >= rowOf.length) rowOf = Arrays.copyOf(rowOf, i + 1);
+            rowOf[i] = row + 1;
+        }
+        if (simulation == null) return;
+        int[] rowsByIndex = rowOf;
+        // Zero marks a simulation vehicle without a row.
+        simulation.setStatusListener(i -> {
+            if (i < rowsByIndex.length && rowsByIndex[i] != 0) frames.post(rowsByIndex[i] - 1);
+        });
+    }
+
+    private String statusOf(int row) {
+        int i = simulationIndex[row];
+        return i >= 0 ? simulation.getStatusAt(i) : READY;
+    }
+
+    private final class RowListener implements VehicleListener {
+        private final int row;
+
+        RowListener(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public void mileageChanged(Vehicle vehicle, double delta) {
+            frames.post(row);
+        }
+
+        @Override
+        public void vehicleChanged(Vehicle vehicle) {
+            frames.post(row);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package sink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import interfaces.MovementSink;
+import vehicle.Vehicle;
+
+// Moving threads only enqueue (vehicle, distance); a background thread builds the log
+// lines in batches and writes each batch with one call. Lines are formatted when the
+// batch is written, so cargo or passenger counts reflect that moment. When the queue is
+// full the event is dropped and counted rather than blocking the mover.
+public class AsyncMovementLogger implements MovementSink, AutoCloseable {
+    private static final int BATCH_SIZE = 4096;
+
+    private final BlockingQueue<MoveEvent> queue;
+    private final Writer out;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean open = true;
+
+    public AsyncMovementLogger(int capacity) {
+        this(new OutputStreamWriter(System.out), capacity);
+    }
+
+    public AsyncMovementLogger(Writer out, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = new BufferedWriter(out, 1 << 16);
+        this.writer = new Thread(this::drain, "AsyncMovementLogger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void vehicleMoved(Vehicle vehicle, double distance) {
+        if (!open || !queue.offer(new MoveEvent(vehicle, distance))) {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        List<MoveEvent> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder lines = new StringBuilder(BATCH_SIZE * 64);
+        try {
+            while (open || !queue.isEmpty()) {
+                MoveEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (MoveEvent event : batch) {
+                    lines.append(event.vehicle().describeMove(event.distance())).append(System.lineSeparator());
+                }
+                out.write(lines.toString());
+                out.flush();
+                batch.clear();
+                lines.setLength(0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Movement log stopped: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record MoveEvent(Vehicle vehicle, double distance) {
+    }
+}
@@ -0,0 +1,31 @@
+package sink;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import interfaces.MovementSink;
+import vehicle.Vehicle;
+
+public class CountingMovementSink implements MovementSink {
+    private final LongAdder moves = new LongAdder();
+    private final DoubleAdder distance = new DoubleAdder();
+
+    @Override
+    public void vehicleMoved(Vehicle vehicle, double distance) {
+        moves.increment();
+        this.distance.add(distance);
+    }
+
+    @Override
+    public void vehicleMovedSteps(Vehicle vehicle, double distance, int steps) {
+        moves.add(steps);
+        this.distance.add(distance * steps);
+    }
+
+    public long getMoveCount() { return moves.sum(); }
+    public double getTotalDistance() { return distance.sum(); }
+
+    public void reset() {
+        moves.reset();
+        distance.reset();
+    }
+}
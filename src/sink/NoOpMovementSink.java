@@ -0,0 +1,19 @@
+package sink;
+
+import interfaces.MovementSink;
+import vehicle.Vehicle;
+
+public final class NoOpMovementSink implements MovementSink {
+    public static final NoOpMovementSink INSTANCE = new NoOpMovementSink();
+
+    private NoOpMovementSink() {
+    }
+
+    @Override
+    public void vehicleMoved(Vehicle vehicle, double distance) {
+    }
+
+    @Override
+    public void vehicleMovedSteps(Vehicle vehicle, double distance, int steps) {
+    }
+}
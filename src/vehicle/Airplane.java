@@ -23,13 +23,21 @@ public class Airplane extends AirVehicle implements FuelConsumable, PassengerCar
 
     @Override
     public void move(double distance) throws InvalidOperationException, InsufficientFuelException {
-        if (distance <= 0) throw new InvalidOperationException("Distance must be positive.");
+        moveOrThrow(distance, "Not enough fuel.");
+    }
 
-        consumeFuel(distance);
+    @Override
+    protected boolean consumeFuelFor(double distance) {
+        double fuelNeeded = distance / calculateFuelEfficiency();
+        if (fuelNeeded > fuelLevel) return false;
+        fuelLevel -= fuelNeeded;
+        return true;
+    }
 
-        addMileage(distance);
-        System.out.println("Flying at " + getMaxAltitude() + " meters: Airplane " 
-                        + getId() + " traveled " + distance + " km.");
+    @Override
+    public String describeMove(double distance) {
+        return "Flying at " + getMaxAltitude() + " meters: Airplane " 
+                        + getId() + " traveled " + distance + " km.";
     }
 
 
@@ -39,7 +47,9 @@ public class Airplane extends AirVehicle implements FuelConsumable, PassengerCar
     }
     public void refuel(double amount) throws InvalidOperationException {
         if (amount <= 0) throw new InvalidOperationException("Refuel amount must be positive.");
+        beginChange();
         this.fuelLevel += amount;
+        endChange();
     }
     @Override
     public double getFuelLevel() {
@@ -49,23 +59,36 @@ public class Airplane extends AirVehicle implements FuelConsumable, PassengerCar
     @Override
     public double consumeFuel(double distance) throws InsufficientFuelException {
         double fuelNeeded = distance / calculateFuelEfficiency();
+        beginChange();
         if (fuelNeeded > this.fuelLevel) {
+            cancelChange();
             throw new InsufficientFuelException("Not enough fuel.");
         }
         this.fuelLevel -= fuelNeeded;
+        endChange();
         return fuelNeeded;
     }
     @Override
     public void boardPassengers(int count) throws OverloadException, InvalidOperationException {
         if (count <= 0) throw new InvalidOperationException("Passenger count must be positive.");
-        if (currentPassengers + count > passengerCapacity) throw new OverloadException("Capacity exceeded.");
+        beginChange();
+        if (currentPassengers + count > passengerCapacity) {
+            cancelChange();
+            throw new OverloadException("Capacity exceeded.");
+        }
         currentPassengers += count;
+        endChange();
     }
     @Override
     public void disembarkPassengers(int count) throws InvalidOperationException {
         if (count <= 0) throw new InvalidOperationException("Passenger count must be positive.");
-        if (count > currentPassengers) throw new InvalidOperationException("Not enough passengers.");
+        beginChange();
+        if (count > currentPassengers) {
+            cancelChange();
+            throw new InvalidOperationException("Not enough passengers.");
+        }
         currentPassengers -= count;
+        endChange();
     }
     @Override
     public int getPassengerCapacity() { return passengerCapacity; }
@@ -74,28 +97,44 @@ public class Airplane extends AirVehicle implements FuelConsumable, PassengerCar
     @Override
     public void loadCargo(double weight) throws OverloadException, InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (currentCargo + weight > cargoCapacity) throw new OverloadException("Cargo capacity exceeded.");
+        beginChange();
+        if (currentCargo + weight > cargoCapacity) {
+            cancelChange();
+            throw new OverloadException("Cargo capacity exceeded.");
+        }
         currentCargo += weight;
+        endChange();
     }
     @Override
     public void unloadCargo(double weight) throws InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (weight > currentCargo) throw new InvalidOperationException("Cannot unload more than current cargo.");
+        beginChange();
+        if (weight > currentCargo) {
+            cancelChange();
+            throw new InvalidOperationException("Cannot unload more than current cargo.");
+        }
         currentCargo -= weight;
+        endChange();
     }
     @Override
     public double getCargoCapacity() { return cargoCapacity; }
     @Override
     public double getCurrentCargo() { return currentCargo; }
     @Override
-    public void scheduleMaintenance() { maintenanceNeeded = true; }
+    public void scheduleMaintenance() {
+        beginChange();
+        maintenanceNeeded = true;
+        endChange();
+    }
     @Override
     public boolean needsMaintenance() { return maintenanceNeeded || getCurrentMileage() > 10000; }
 
     @Override
     public void performMaintenance() {
+        beginChange();
         maintenanceNeeded = false;
+        endChange();
         // setMileage(0.0);
-        System.out.println("Airplane " + getId() + " maintenance performed.");
+        printConsoleLine("Airplane " + getId() + " maintenance performed.");
     }
 }
\ No newline at end of file
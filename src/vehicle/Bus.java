@@ -23,14 +23,20 @@ public class Bus extends LandVehicle implements FuelConsumable, PassengerCarrier
 
     @Override
     public void move(double distance) throws InvalidOperationException, InsufficientFuelException {
-        if (distance <= 0) throw new InvalidOperationException("Distance must be positive.");
+        moveOrThrow(distance, "Not enough fuel to move.");
+    }
 
+    @Override
+    protected boolean consumeFuelFor(double distance) {
         double fuelNeeded = distance / calculateFuelEfficiency();
-        if (fuelNeeded > getFuelLevel()) throw new InsufficientFuelException("Not enough fuel to move.");
-        consumeFuel(distance);
+        if (fuelNeeded > fuelLevel) return false;
+        fuelLevel -= fuelNeeded;
+        return true;
+    }
 
-        addMileage(distance);
-        System.out.println("Transporting passengers and cargo: Bus " + getId() + " moved " + distance + " km with " + currentPassengers + " passengers and " + currentCargo + " kg cargo.");
+    @Override
+    public String describeMove(double distance) {
+        return "Transporting passengers and cargo: Bus " + getId() + " moved " + distance + " km with " + currentPassengers + " passengers and " + currentCargo + " kg cargo.";
     }
 
     @Override
@@ -44,7 +50,9 @@ public class Bus extends LandVehicle implements FuelConsumable, PassengerCarrier
 
     public void refuel(double amount) throws InvalidOperationException {
         if (amount <= 0) throw new InvalidOperationException("Refuel amount must be positive.");
+        beginChange();
         this.fuelLevel += amount;
+        endChange();
     }
 
 
@@ -56,25 +64,38 @@ public class Bus extends LandVehicle implements FuelConsumable, PassengerCarrier
     @Override
     public double consumeFuel(double distance) throws InsufficientFuelException {
         double fuelNeeded = distance / calculateFuelEfficiency();
+        beginChange();
         if (fuelNeeded > this.fuelLevel) {
+            cancelChange();
             throw new InsufficientFuelException("Not enough fuel.");
         }
         this.fuelLevel -= fuelNeeded;
+        endChange();
         return fuelNeeded;
     }
 
     @Override
     public void boardPassengers(int count) throws OverloadException, InvalidOperationException {
         if (count <= 0) throw new InvalidOperationException("Passenger count must be positive.");
-        if (currentPassengers + count > passengerCapacity) throw new OverloadException("Capacity exceeded");
+        beginChange();
+        if (currentPassengers + count > passengerCapacity) {
+            cancelChange();
+            throw new OverloadException("Capacity exceeded");
+        }
         currentPassengers += count;
+        endChange();
     }
 
     @Override
     public void disembarkPassengers(int count) throws InvalidOperationException {
         if (count <= 0) throw new InvalidOperationException("Passenger count must be positive.");
-        if (count > currentPassengers) throw new InvalidOperationException("Not enough passengers");
+        beginChange();
+        if (count > currentPassengers) {
+            cancelChange();
+            throw new InvalidOperationException("Not enough passengers");
+        }
         currentPassengers -= count;
+        endChange();
     }
     @Override
     public int getPassengerCapacity() { return passengerCapacity; }
@@ -83,14 +104,24 @@ public class Bus extends LandVehicle implements FuelConsumable, PassengerCarrier
     @Override
     public void loadCargo(double weight) throws OverloadException, InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (currentCargo + weight > cargoCapacity) throw new OverloadException("Cargo capacity exceeded");
+        beginChange();
+        if (currentCargo + weight > cargoCapacity) {
+            cancelChange();
+            throw new OverloadException("Cargo capacity exceeded");
+        }
         currentCargo += weight;
+        endChange();
     }
     @Override
     public void unloadCargo(double weight) throws InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (weight > currentCargo) throw new InvalidOperationException("Cannot unload more than current cargo");
+        beginChange();
+        if (weight > currentCargo) {
+            cancelChange();
+            throw new InvalidOperationException("Cannot unload more than current cargo");
+        }
         currentCargo -= weight;
+        endChange();
     }
 
     @Override
@@ -98,14 +129,20 @@ public class Bus extends LandVehicle implements FuelConsumable, PassengerCarrier
     @Override
     public double getCurrentCargo() { return currentCargo; }
     @Override
-    public void scheduleMaintenance() { maintenanceNeeded = true; }
+    public void scheduleMaintenance() {
+        beginChange();
+        maintenanceNeeded = true;
+        endChange();
+    }
 
     public boolean needsMaintenance() { return getCurrentMileage() > 10000 || maintenanceNeeded; }
 
     @Override
     public void performMaintenance() {
+        beginChange();
         maintenanceNeeded = false;
+        endChange();
         // setMileage(0.0);
-        System.out.println("Bus " + getId() + " maintenance performed.");
+        printConsoleLine("Bus " + getId() + " maintenance performed.");
     }
 }
\ No newline at end of file
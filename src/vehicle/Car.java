@@ -19,14 +19,18 @@ public class Car extends LandVehicle implements FuelConsumable, PassengerCarrier
     }
     @Override
     public void move(double distance) throws InvalidOperationException, InsufficientFuelException {
-        if (distance <= 0) throw new InvalidOperationException("Distance must be positive.");
-
+        moveOrThrow(distance, "Not enough fuel to move.");
+    }
+    @Override
+    protected boolean consumeFuelFor(double distance) {
         double fuelNeeded = distance / calculateFuelEfficiency();
-        if (fuelNeeded > getFuelLevel()) throw new InsufficientFuelException("Not enough fuel to move.");
-        consumeFuel(distance);
-
-        addMileage(distance);
-        System.out.println("Driving on road: Car " + getId() + " moved " + distance + " km.");
+        if (fuelNeeded > fuelLevel) return false;
+        fuelLevel -= fuelNeeded;
+        return true;
+    }
+    @Override
+    public String describeMove(double distance) {
+        return "Driving on road: Car " + getId() + " moved " + distance + " km.";
     }
     @Override
     public double calculateFuelEfficiency() {
@@ -35,7 +39,9 @@ public class Car extends LandVehicle implements FuelConsumable, PassengerCarrier
     @Override
     public void refuel(double amount) throws InvalidOperationException {
         if (amount <= 0) throw new InvalidOperationException("Refuel amount must be positive.");
+        beginChange();
         this.fuelLevel += amount;
+        endChange();
     }
     @Override
     public double getFuelLevel() {
@@ -44,26 +50,37 @@ public class Car extends LandVehicle implements FuelConsumable, PassengerCarrier
     @Override
     public double consumeFuel(double distance) throws InsufficientFuelException {
         double fuelNeeded = distance / calculateFuelEfficiency();
+        beginChange();
         if (fuelNeeded > this.fuelLevel) {
+            cancelChange();
             throw new InsufficientFuelException("Not enough fuel.");
         }
         this.fuelLevel -= fuelNeeded;
+        endChange();
         return fuelNeeded;
     }
     @Override
     public void boardPassengers(int count) throws InvalidOperationException, OverloadException {
         if (count <= 0) throw new InvalidOperationException("Passenger count must be positive.");
-        if (currentPassengers + count > passengerCapacity)
+        beginChange();
+        if (currentPassengers + count > passengerCapacity) {
+            cancelChange();
             throw new OverloadException("Exceeds passenger capacity.");
+        }
         currentPassengers += count;
+        endChange();
     }
 
     @Override
     public void disembarkPassengers(int count) throws InvalidOperationException {
         if (count <= 0) throw new InvalidOperationException("Passenger count must be positive.");
-        if (count > currentPassengers)
+        beginChange();
+        if (count > currentPassengers) {
+            cancelChange();
             throw new InvalidOperationException("Not enough passengers to disembark.");
+        }
         currentPassengers -= count;
+        endChange();
     }
 
     @Override
@@ -71,13 +88,19 @@ public class Car extends LandVehicle implements FuelConsumable, PassengerCarrier
     @Override
     public int getCurrentPassengers() { return currentPassengers; }
     @Override
-    public void scheduleMaintenance() { maintenanceNeeded = true; }
+    public void scheduleMaintenance() {
+        beginChange();
+        maintenanceNeeded = true;
+        endChange();
+    }
     @Override
     public boolean needsMaintenance() { return maintenanceNeeded || getCurrentMileage() > 10000; }
     @Override
     public void performMaintenance() {
+        beginChange();
         maintenanceNeeded = false;
+        endChange();
         // setMileage(0.0);
-        System.out.println("Car " + getId() + " maintenance performed.");
+        printConsoleLine("Car " + getId() + " maintenance performed.");
     }
 }
\ No newline at end of file
@@ -18,17 +18,21 @@ public class CargoShip extends WaterVehicle implements CargoCarrier, Maintainabl
 
     @Override
     public void move(double distance) throws InvalidOperationException, InsufficientFuelException {
-        if (distance <= 0) throw new InvalidOperationException("Distance must be positive.");
-        if (!hasSail()) {
-            double fuelNeeded = distance / calculateFuelEfficiency();
-            if (fuelNeeded > getFuelLevel()) {
-                throw new InsufficientFuelException("Not enough fuel to sail.");
-            }
-            consumeFuel(distance);
-        }
+        moveOrThrow(distance, "Not enough fuel to sail.");
+    }
+
+    @Override
+    protected boolean consumeFuelFor(double distance) {
+        if (hasSail()) return true;
+        double fuelNeeded = distance / calculateFuelEfficiency();
+        if (fuelNeeded > fuelLevel) return false;
+        fuelLevel -= fuelNeeded;
+        return true;
+    }
 
-        addMileage(distance);
-        System.out.println("Sailing with cargo: CargoShip " + getId() + " moved " + distance + " km with " + currentCargo + " kg cargo.");
+    @Override
+    public String describeMove(double distance) {
+        return "Sailing with cargo: CargoShip " + getId() + " moved " + distance + " km with " + currentCargo + " kg cargo.";
     }
 
     @Override
@@ -40,7 +44,9 @@ public class CargoShip extends WaterVehicle implements CargoCarrier, Maintainabl
     public void refuel(double amount) throws InvalidOperationException {
         if (!hasSail()) {
             if (amount <= 0) throw new InvalidOperationException("Refuel amount must be positive.");
+            beginChange();
             this.fuelLevel += amount;
+            endChange();
         }
     }
     @Override
@@ -54,10 +60,13 @@ public class CargoShip extends WaterVehicle implements CargoCarrier, Maintainabl
     public double consumeFuel(double distance) throws InsufficientFuelException {
         if (!hasSail()) {
             double fuelNeeded = distance / calculateFuelEfficiency();
+            beginChange();
             if (fuelNeeded > this.fuelLevel) {
+                cancelChange();
                 throw new InsufficientFuelException("Not enough fuel.");
             }
             this.fuelLevel -= fuelNeeded;
+            endChange();
             return fuelNeeded;
         }
         return 0.0;
@@ -65,15 +74,25 @@ public class CargoShip extends WaterVehicle implements CargoCarrier, Maintainabl
     @Override
     public void loadCargo(double weight) throws OverloadException, InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (currentCargo + weight > cargoCapacity) throw new OverloadException("Exceeds cargo capacity.");
+        beginChange();
+        if (currentCargo + weight > cargoCapacity) {
+            cancelChange();
+            throw new OverloadException("Exceeds cargo capacity.");
+        }
         currentCargo += weight;
+        endChange();
     }
 
     @Override
     public void unloadCargo(double weight) throws InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (weight > currentCargo) throw new InvalidOperationException("Cannot unload more than current cargo.");
+        beginChange();
+        if (weight > currentCargo) {
+            cancelChange();
+            throw new InvalidOperationException("Cannot unload more than current cargo.");
+        }
         currentCargo -= weight;
+        endChange();
     }
 
     @Override
@@ -82,15 +101,21 @@ public class CargoShip extends WaterVehicle implements CargoCarrier, Maintainabl
     public double getCurrentCargo() { return currentCargo; }
 
     @Override
-    public void scheduleMaintenance() { maintenanceNeeded = true; }
+    public void scheduleMaintenance() {
+        beginChange();
+        maintenanceNeeded = true;
+        endChange();
+    }
 
     @Override
     public boolean needsMaintenance() { return maintenanceNeeded || getCurrentMileage() > 50000; }
 
     @Override
     public void performMaintenance() {
+        beginChange();
         maintenanceNeeded = false;
+        endChange();
         // setMileage(0.0);
-        System.out.println("CargoShip " + getId() + " maintenance performed.");
+        printConsoleLine("CargoShip " + getId() + " maintenance performed.");
     }
 }
\ No newline at end of file
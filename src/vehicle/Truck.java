@@ -19,14 +19,20 @@ public class Truck extends LandVehicle implements FuelConsumable, CargoCarrier,
 
     @Override
     public void move(double distance) throws InvalidOperationException, InsufficientFuelException {
-        if (distance <= 0) throw new InvalidOperationException("Distance must be positive.");
+        moveOrThrow(distance, "Not enough fuel to move.");
+    }
 
+    @Override
+    protected boolean consumeFuelFor(double distance) {
         double fuelNeeded = distance / calculateFuelEfficiency();
-        if (fuelNeeded > getFuelLevel()) throw new InsufficientFuelException("Not enough fuel to move.");
-        consumeFuel(distance);
+        if (fuelNeeded > fuelLevel) return false;
+        fuelLevel -= fuelNeeded;
+        return true;
+    }
 
-        addMileage(distance);
-        System.out.println("Hauling cargo: Truck " + getId() + " moved " + distance + " km with " + currentCargo + " kg cargo.");
+    @Override
+    public String describeMove(double distance) {
+        return "Hauling cargo: Truck " + getId() + " moved " + distance + " km with " + currentCargo + " kg cargo.";
     }
 
     @Override
@@ -40,7 +46,9 @@ public class Truck extends LandVehicle implements FuelConsumable, CargoCarrier,
     @Override
     public void refuel(double amount) throws InvalidOperationException {
         if (amount <= 0) throw new InvalidOperationException("Refuel amount must be positive.");
+        beginChange();
         this.fuelLevel += amount;
+        endChange();
     }
     @Override
     public double getFuelLevel() {
@@ -49,25 +57,38 @@ public class Truck extends LandVehicle implements FuelConsumable, CargoCarrier,
     @Override
     public double consumeFuel(double distance) throws InsufficientFuelException {
         double fuelNeeded = distance / calculateFuelEfficiency();
+        beginChange();
         if (fuelNeeded > this.fuelLevel) {
+            cancelChange();
             throw new InsufficientFuelException("Not enough fuel.");
         }
         this.fuelLevel -= fuelNeeded;
+        endChange();
         return fuelNeeded;
     }
 
     @Override
     public void loadCargo(double weight) throws OverloadException, InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (currentCargo + weight > cargoCapacity) throw new OverloadException("Exceeds cargo capacity.");
+        beginChange();
+        if (currentCargo + weight > cargoCapacity) {
+            cancelChange();
+            throw new OverloadException("Exceeds cargo capacity.");
+        }
         currentCargo += weight;
+        endChange();
     }
 
     @Override
     public void unloadCargo(double weight) throws InvalidOperationException {
         if (weight <= 0) throw new InvalidOperationException("Cargo weight must be positive.");
-        if (weight > currentCargo) throw new InvalidOperationException("Cannot unload more than current cargo.");
+        beginChange();
+        if (weight > currentCargo) {
+            cancelChange();
+            throw new InvalidOperationException("Cannot unload more than current cargo.");
+        }
         currentCargo -= weight;
+        endChange();
     }
 
     @Override
@@ -75,14 +96,20 @@ public class Truck extends LandVehicle implements FuelConsumable, CargoCarrier,
     @Override
     public double getCurrentCargo() { return currentCargo; }
     @Override
-    public void scheduleMaintenance() { maintenanceNeeded = true; }
+    public void scheduleMaintenance() {
+        beginChange();
+        maintenanceNeeded = true;
+        endChange();
+    }
     @Override
     public boolean needsMaintenance() { return maintenanceNeeded || getCurrentMileage() > 10000; }
     @Override
     public void performMaintenance() {
+        beginChange();
         maintenanceNeeded = false;
+        endChange();
         // setMileage(0.0);
-        System.out.println("Truck " + getId() + " maintenance performed. Mileage reset to 0.");
+        printConsoleLine("Truck " + getId() + " maintenance performed. Mileage reset to 0.");
     }
 
 }
\ No newline at end of file
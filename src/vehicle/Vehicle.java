@@ -1,13 +1,47 @@
 package vehicle;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import exception.InvalidOperationException;
 import exception.InsufficientFuelException;
+import interfaces.CargoCarrier;
+import interfaces.FuelConsumable;
+import interfaces.Maintainable;
+import interfaces.MovementSink;
+import interfaces.PassengerCarrier;
+import interfaces.VehicleListener;
+import metrics.Metrics;
 
 public abstract class Vehicle implements Comparable<Vehicle> {
+    public static final byte MOVE_OK = 0;
+    public static final byte MOVE_INVALID_DISTANCE = 1;
+    public static final byte MOVE_INSUFFICIENT_FUEL = 2;
+
+    public static final MovementSink CONSOLE_SINK = (vehicle, distance) -> printConsoleLine(vehicle.describeMove(distance));
+    // Console lines held back for the current thread, see holdConsoleLines.
+    private static final ThreadLocal<StringBuilder> HELD_CONSOLE_LINES = new ThreadLocal<>();
+
+    private static volatile MovementSink movementSink = CONSOLE_SINK;
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(Vehicle.class, "version", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String id;
     private String model;
     private double maxSpeed;
     private double currentMileage;
+    // A single reference rather than a list, so that a move does not touch another object.
+    private volatile VehicleListener listener;
+    // Seqlock over the mutable state, odd while a change is being written. Writers enter with
+    // a CAS, so two threads changing the same vehicle take turns; snapshot() never blocks a
+    // writer and simply reads again when a change overlapped it.
+    private volatile int version;
 
     public Vehicle(String id, String model, double maxSpeed) throws InvalidOperationException {
         if (id == null || id.trim().isEmpty()) {
@@ -42,6 +76,78 @@ public abstract class Vehicle implements Comparable<Vehicle> {
     }
 
     public abstract void move(double distance) throws InvalidOperationException, InsufficientFuelException;
+    public abstract String describeMove(double distance);
+
+    // Same state changes as move(), but failures come back as a MOVE_* code instead of an exception.
+    // A move that fails leaves the version as it was, so observers see no change.
+    public final byte tryMove(double distance) {
+        if (distance <= 0) return MOVE_INVALID_DISTANCE;
+        long begin = Metrics.MOVE.begin();
+        VehicleListener l = listener;
+        beginChange();
+        boolean neededMaintenance = l != null && needsMaintenanceNow();
+        if (!consumeFuelFor(distance)) {
+            cancelWrite();
+            Metrics.MOVE.end(begin);
+            return MOVE_INSUFFICIENT_FUEL;
+        }
+        double before = currentMileage;
+        currentMileage = before + distance;
+        double delta = currentMileage - before;
+        boolean maintenanceChanged = l != null && needsMaintenanceNow() != neededMaintenance;
+        endWrite();
+        if (l != null) notifyMileage(l, delta, maintenanceChanged);
+        reportMove(distance);
+        Metrics.MOVE.end(begin);
+        Metrics.MOVES.increment();
+        return MOVE_OK;
+    }
+
+    // Up to maxSteps moves of distance, each made exactly as tryMove(distance) would make it, so
+    // fuel and mileage end up bit for bit the same; listeners hear about them once, the movement
+    // sink hears every move. Stops before a move when the fuel level is at or below fuelReserve
+    // or the move would fail, and right after the move that changes whether maintenance is
+    // needed. Returns the number of moves made.
+    public final int tryMoveSteps(double distance, int maxSteps, double fuelReserve) {
+        if (distance <= 0 || maxSteps <= 0) return 0;
+        long begin = Metrics.MOVE.begin();
+        VehicleListener l = listener;
+        FuelConsumable fc = this instanceof FuelConsumable f ? f : null;
+        int steps = 0;
+        beginChange();
+        boolean neededMaintenance = needsMaintenanceNow();
+        double before = currentMileage;
+        while (steps < maxSteps) {
+            if (fc != null && fc.getFuelLevel() <= fuelReserve) break;
+            if (!consumeFuelFor(distance)) break;
+            currentMileage += distance;
+            steps++;
+            if (needsMaintenanceNow() != neededMaintenance) break;
+        }
+        if (steps == 0) {
+            cancelWrite();
+            Metrics.MOVE.end(begin);
+            return 0;
+        }
+        double delta = currentMileage - before;
+        boolean maintenanceChanged = needsMaintenanceNow() != neededMaintenance;
+        endWrite();
+        if (l != null) notifyMileage(l, delta, maintenanceChanged);
+        reportMoves(distance, steps);
+        Metrics.MOVE.end(begin);
+        Metrics.MOVES.add(steps);
+        return steps;
+    }
+
+    protected void moveOrThrow(double distance, String insufficientFuelMessage)
+            throws InvalidOperationException, InsufficientFuelException {
+        byte status = tryMove(distance);
+        if (status == MOVE_INVALID_DISTANCE) throw new InvalidOperationException("Distance must be positive.");
+        if (status == MOVE_INSUFFICIENT_FUEL) throw new InsufficientFuelException(insufficientFuelMessage);
+    }
+
+    // Burns the fuel needed for the distance, or changes nothing and returns false when there is not enough.
+    protected abstract boolean consumeFuelFor(double distance);
     public abstract double calculateFuelEfficiency();
     public abstract double estimateJourneyTime(double distance) throws InvalidOperationException;
 
@@ -53,7 +159,7 @@ public abstract class Vehicle implements Comparable<Vehicle> {
 
     public void setMileage(double mileage) throws InvalidOperationException {
         if (mileage < 0) throw new InvalidOperationException("Mileage cannot be negative.");
-        this.currentMileage = mileage;
+        changeMileage(mileage);
     }
 
 
@@ -61,11 +167,167 @@ public abstract class Vehicle implements Comparable<Vehicle> {
         if (distance < 0) {
             throw new InvalidOperationException("Distance cannot be negative.");
         }
-        this.currentMileage += distance;
+        changeMileage(currentMileage + distance);
+    }
+
+    public static void setMovementSink(MovementSink sink) {
+        movementSink = sink != null ? sink : CONSOLE_SINK;
+    }
+
+    public static MovementSink getMovementSink() {
+        return movementSink;
+    }
+
+    // The vehicles' own console output: move lines under CONSOLE_SINK and maintenance notices.
+    public static void printConsoleLine(String line) {
+        StringBuilder held = HELD_CONSOLE_LINES.get();
+        if (held == null) {
+            System.out.println(line);
+        } else {
+            held.append(line).append(System.lineSeparator());
+        }
+    }
+
+    // While set, console lines printed on the calling thread are appended to into instead, so
+    // that work spread over threads can print them in fleet order afterwards; null prints again.
+    public static void holdConsoleLines(StringBuilder into) {
+        if (into == null) {
+            HELD_CONSOLE_LINES.remove();
+        } else {
+            HELD_CONSOLE_LINES.set(into);
+        }
+    }
+
+    public synchronized void addListener(VehicleListener added) {
+        listener = listener == null ? added : new ListenerPair(listener, added);
+    }
+
+    public synchronized void removeListener(VehicleListener removed) {
+        listener = ListenerPair.without(listener, removed);
+    }
+
+    // Subclasses bracket every change to their own state with beginChange() and endChange();
+    // endChange() also notifies the listeners.
+    protected final void beginChange() {
+        int v = version;
+        while ((v & 1) != 0 || !VERSION.compareAndSet(this, v, v + 1)) {
+            Thread.onSpinWait();
+            v = version;
+        }
+        // The odd version must be visible before any of the changed fields.
+        VarHandle.storeStoreFence();
+    }
+
+    protected final void endChange() {
+        endWrite();
+        VehicleListener l = listener;
+        if (l != null) l.vehicleChanged(this);
+    }
+
+    // Ends a change section without changing anything, e.g. before throwing a failed precondition.
+    protected final void cancelChange() {
+        cancelWrite();
+    }
+
+    // Even, and changed by every completed change; lets observers skip unchanged vehicles.
+    public int getVersion() {
+        int v;
+        while (((v = version) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return v;
+    }
+
+    // A consistent copy of the mutable state, as it was between two changes.
+    public VehicleSnapshot snapshot() {
+        while (true) {
+            int before = (int) VERSION.getAcquire(this);
+            if ((before & 1) == 0) {
+                double mileage = currentMileage;
+                double fuelLevel = this instanceof FuelConsumable fc ? fc.getFuelLevel() : Double.NaN;
+                int passengers = this instanceof PassengerCarrier pc ? pc.getCurrentPassengers() : 0;
+                double cargo = this instanceof CargoCarrier cc ? cc.getCurrentCargo() : 0.0;
+                boolean needsMaintenance = needsMaintenanceNow();
+                VarHandle.loadLoadFence();
+                if (version == before) {
+                    return new VehicleSnapshot(this, before, mileage, fuelLevel, passengers, cargo, needsMaintenance);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void endWrite() {
+        VERSION.setRelease(this, version + 1);
+    }
+
+    // Ends a write section that changed nothing, restoring the version it started from.
+    private void cancelWrite() {
+        VERSION.setRelease(this, version - 1);
+    }
+
+    private void changeMileage(double mileage) {
+        VehicleListener l = listener;
+        beginChange();
+        boolean neededMaintenance = l != null && needsMaintenanceNow();
+        double delta = mileage - currentMileage;
+        currentMileage = mileage;
+        boolean maintenanceChanged = l != null && needsMaintenanceNow() != neededMaintenance;
+        endWrite();
+        if (l != null) notifyMileage(l, delta, maintenanceChanged);
+    }
+
+    private void notifyMileage(VehicleListener l, double delta, boolean maintenanceChanged) {
+        l.mileageChanged(this, delta);
+        if (maintenanceChanged) l.vehicleChanged(this);
+    }
+
+    private boolean needsMaintenanceNow() {
+        return this instanceof Maintainable m && m.needsMaintenance();
+    }
+
+    protected void reportMove(double distance) {
+        movementSink.vehicleMoved(this, distance);
+    }
+
+    protected void reportMoves(double distance, int steps) {
+        movementSink.vehicleMovedSteps(this, distance, steps);
     }
 
     public String basicInfo() {
         return String.format("%-12s %-8s", this.getClass().getSimpleName(), getId());
     }
 
-}
\ No newline at end of file
+    private static final class ListenerPair implements VehicleListener {
+        private final VehicleListener first;
+        private final VehicleListener second;
+
+        ListenerPair(VehicleListener first, VehicleListener second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        static VehicleListener without(VehicleListener chain, VehicleListener removed) {
+            if (chain == removed || chain == null) return null;
+            if (!(chain instanceof ListenerPair pair)) return chain;
+            VehicleListener first = without(pair.first, removed);
+            VehicleListener second = without(pair.second, removed);
+            if (first == pair.first && second == pair.second) return pair;
+            if (first == null) return second;
+            if (second == null) return first;
+            return new ListenerPair(first, second);
+        }
+
+        @Override
+        public void mileageChanged(Vehicle vehicle, double delta) {
+            first.mileageChanged(vehicle, delta);
+            second.mileageChanged(vehicle, delta);
+        }
+
+        @Override
+        public void vehicleChanged(Vehicle vehicle) {
+            first.vehicleChanged(vehicle);
+            second.vehicleChanged(vehicle);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package vehicle;
+
+// The mutable state of a vehicle at one instant, read by Vehicle.snapshot() without blocking
+// the threads that move it. fuelLevel is NaN for vehicles that do not use fuel.
+public record VehicleSnapshot(Vehicle vehicle, int version, double mileage, double fuelLevel,
+                              int passengers, double cargo, boolean needsMaintenance) {
+
+    public String id() {
+        return vehicle.getId();
+    }
+
+    public boolean hasFuel() {
+        return !Double.isNaN(fuelLevel);
+    }
+}